@@ -5,6 +5,7 @@ import com.google.gson.JsonObject;
 import okhttp3.*;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import util.JfrEvents;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 
@@ -19,6 +20,23 @@ public class MpesaService {
     // ====================================================
     private String getAccessToken() throws Exception {
 
+        JfrEvents.MpesaCallEvent event = new JfrEvents.MpesaCallEvent();
+        event.begin();
+        event.operation = "token";
+        event.customerId = JfrEvents.currentCustomerId();
+        event.outcome = JfrEvents.ERROR;
+
+        try {
+            String token = fetchAccessToken(event);
+            event.outcome = JfrEvents.OK;
+            return token;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private String fetchAccessToken(JfrEvents.MpesaCallEvent event) throws Exception {
+
         String auth = MpesaConfig.CONSUMER_KEY + ":" + MpesaConfig.CONSUMER_SECRET;
         String basicAuth = Base64.getEncoder().encodeToString(auth.getBytes(StandardCharsets.UTF_8));
 
@@ -29,6 +47,7 @@ public class MpesaService {
                 .build();
 
         Response response = client.newCall(request).execute();
+        event.httpStatus = response.code();
 
         if (!response.isSuccessful()) {
             String errorBody = response.body() != null ? response.body().string() : "EMPTY";
@@ -57,6 +76,25 @@ public class MpesaService {
             String reference
     ) {
 
+        JfrEvents.MpesaCallEvent event = new JfrEvents.MpesaCallEvent();
+        event.begin();
+
+        StkPushResponse response = sendStkPush(phone, amount, description, event);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "stkPush";
+            event.customerId = JfrEvents.currentCustomerId();
+            event.responseCode = response.getResponseCode();
+            event.outcome = "0".equals(response.getResponseCode()) ? JfrEvents.OK : JfrEvents.ERROR;
+            event.commit();
+        }
+        return response;
+    }
+
+    private StkPushResponse sendStkPush(String phone, String amount, String description,
+            JfrEvents.MpesaCallEvent event) {
+
         StkPushResponse result = new StkPushResponse();
 
         try {
@@ -95,6 +133,7 @@ public class MpesaService {
                     .build();
 
             Response response = client.newCall(request).execute();
+            event.httpStatus = response.code();
             String raw = response.body() != null ? response.body().string() : "{}";
 
             System.out.println("📌 RAW STK PUSH RESPONSE: " + raw);
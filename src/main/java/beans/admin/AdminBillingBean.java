@@ -1,17 +1,26 @@
 package beans.admin;
 
 import dao.BillingDAO;
-import jakarta.annotation.PostConstruct;
-import jakarta.enterprise.context.SessionScoped;
+import dao.ServiceDAO;
+import jakarta.faces.view.ViewScoped;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
+import model.BillSettlement;
 import model.Billing;
+import model.Service;
+import org.primefaces.model.file.UploadedFile;
+import util.DBConnectionManager;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.Serializable;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @Named("adminBillingBean")
-@SessionScoped
+@ViewScoped
 public class AdminBillingBean implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -19,8 +28,11 @@ public class AdminBillingBean implements Serializable {
     @Inject
     private BillingDAO billingDAO;
 
-    private List<Billing> paidList;
-    private List<Billing> unpaidList;
+    // One page per tab is read on demand by the data tables; kept for the view so page keys survive paging
+    private final BillingLazyDataModel unpaidBills = new BillingLazyDataModel(false);
+    private final BillingLazyDataModel paidBills = new BillingLazyDataModel(true);
+
+    private List<Service> services;
 
     private String activeTab = "unpaid";
 
@@ -29,15 +41,11 @@ public class AdminBillingBean implements Serializable {
     private String messageType;  // "success" or "error"
     private String lastAction;   // "markPaid" or "markUnpaid"
 
-    @PostConstruct
-    public void init() {
-        loadData();
-    }
-
-    public void loadData() {
-        paidList = billingDAO.getPaidBills();
-        unpaidList = billingDAO.getUnpaidBills();
-    }
+    // Bulk settle / reverse: pasted ids or an uploaded statement
+    private String bulkIds;
+    private transient UploadedFile bulkFile;
+    private String bulkAction = "settle";
+    private BillSettlement settlement;
 
     public void switchTab(String tab) {
         this.activeTab = tab;
@@ -53,11 +61,10 @@ public class AdminBillingBean implements Serializable {
         if (ok) {
             lastAction = "markUnpaid";
             setSuccessMessage("Bill marked as UNPAID successfully!");
+            refreshRow(billId);
         } else {
             setErrorMessage("Failed to mark bill as UNPAID.");
         }
-
-        loadData();
     }
 
     public void markBillPaid(Integer billId) {
@@ -70,11 +77,82 @@ public class AdminBillingBean implements Serializable {
         if (ok) {
             lastAction = "markPaid";
             setSuccessMessage("Bill marked as PAID successfully!");
+            refreshRow(billId);
         } else {
             setErrorMessage("Failed to mark bill as PAID.");
         }
+    }
+
+    /**
+     * Re-reads just the changed bill and swaps it into the page it is shown
+     * on, moving one from the count of the tab it left to the one it joined.
+     * Neither list is re-queried. A row that already had the new status
+     * (changed meanwhile by someone else) leaves the counts alone.
+     */
+    private void refreshRow(int billId) {
+        Billing updated = billingDAO.getBillById(billId);
+        if (updated == null) {
+            return;
+        }
+
+        BillingLazyDataModel from = updated.isPaid() ? unpaidBills : paidBills;
+        BillingLazyDataModel to = updated.isPaid() ? paidBills : unpaidBills;
+
+        Billing previous = from.replace(updated);
+        if (previous != null && previous.isPaid() != updated.isPaid()) {
+            from.adjustCount(-1);
+            to.adjustCount(1);
+        }
+    }
+
+    // ============================
+    // Bulk settle / reverse
+    // ============================
+    public void settleBulk() {
+        boolean paid = !"reverse".equals(bulkAction);
+        boolean fromFile = bulkFile != null && bulkFile.getSize() > 0;
+
+        if (!fromFile && (bulkIds == null || bulkIds.isBlank())) {
+            setErrorMessage("Paste bill ids or choose a file.");
+            return;
+        }
+
+        int maxIds = DBConnectionManager.getIntProperty("billing.bulk.maxIds", 50000);
+        BillSettlement s = new BillSettlement(paid);
+
+        try (Reader in = fromFile
+                ? new InputStreamReader(bulkFile.getInputStream(), StandardCharsets.UTF_8)
+                : new StringReader(bulkIds)) {
+            if (!s.read(in, maxIds)) {
+                setErrorMessage("At most " + maxIds + " bill ids can be applied at once.");
+                return;
+            }
+        } catch (IOException e) {
+            System.err.println("[AdminBillingBean] Bulk upload failed: " + e.getMessage());
+            setErrorMessage("Could not read the uploaded file.");
+            return;
+        }
+
+        if (s.getIds().isEmpty()) {
+            setErrorMessage("No bill ids found.");
+            return;
+        }
+
+        s.setOutcomes(billingDAO.settleBills(s.getIds(),
+                paid, DBConnectionManager.getIntProperty("billing.bulk.chunkSize", 500)));
+        settlement = s;
+        bulkIds = null;
+
+        // Counts and page keys of both tabs are stale now
+        unpaidBills.invalidate();
+        paidBills.invalidate();
 
-        loadData();
+        lastAction = null;
+        if (s.getFailed() > 0) {
+            setErrorMessage(s.getUpdated() + " bill(s) updated, " + s.getFailed() + " failed.");
+        } else {
+            setSuccessMessage(s.getUpdated() + " bill(s) marked as " + (paid ? "PAID" : "UNPAID") + ".");
+        }
     }
 
     public void setSuccessMessage(String msg) {
@@ -93,12 +171,48 @@ public class AdminBillingBean implements Serializable {
         this.lastAction = null;
     }
 
-    public List<Billing> getPaidList() {
-        return paidList;
+    public BillingLazyDataModel getUnpaidBills() {
+        return unpaidBills;
+    }
+
+    public BillingLazyDataModel getPaidBills() {
+        return paidBills;
+    }
+
+    // Options for the service filter
+    public List<Service> getServices() {
+        if (services == null) {
+            services = new ServiceDAO().getAllServices();
+        }
+        return services;
+    }
+
+    public String getBulkIds() {
+        return bulkIds;
+    }
+
+    public void setBulkIds(String bulkIds) {
+        this.bulkIds = bulkIds;
+    }
+
+    public UploadedFile getBulkFile() {
+        return bulkFile;
+    }
+
+    public void setBulkFile(UploadedFile bulkFile) {
+        this.bulkFile = bulkFile;
+    }
+
+    public String getBulkAction() {
+        return bulkAction;
+    }
+
+    public void setBulkAction(String bulkAction) {
+        this.bulkAction = bulkAction;
     }
 
-    public List<Billing> getUnpaidList() {
-        return unpaidList;
+    public BillSettlement getSettlement() {
+        return settlement;
     }
 
     public String getActiveTab() {
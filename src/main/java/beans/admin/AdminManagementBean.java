@@ -9,6 +9,7 @@ import jakarta.faces.view.ViewScoped;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import model.Admin;
+import util.UnitOfWork;
 
 import java.io.IOException;
 import java.io.Serializable;
@@ -194,11 +195,13 @@ public class AdminManagementBean implements Serializable {
         admin.setEmail(editAdminEmail);
         admin.setPhone(editAdminPhone);
 
-        boolean infoUpdated = adminDAO.updateAdmin(admin);
-        boolean credsUpdated = adminDAO.updateAdminCredentials(admin, editAdminUsername,
-                isEmpty(editAdminNewPassword) ? null : editAdminNewPassword);
+        // Profile and credentials change together or not at all
+        boolean updated = UnitOfWork.inTransaction(() ->
+                adminDAO.updateAdmin(admin)
+                && adminDAO.updateAdminCredentials(admin, editAdminUsername,
+                        isEmpty(editAdminNewPassword) ? null : editAdminNewPassword));
 
-        if (infoUpdated && credsUpdated) {
+        if (updated) {
             flashSuccess("Admin updated successfully!");
             resetEditFields();
             loadAdmins();
@@ -0,0 +1,248 @@
+package beans.admin;
+
+import dao.JobLeaseDAO;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Named;
+import jobs.JobLeases;
+import model.JobRun;
+import util.ConnectionPool;
+import util.DBConnectionManager;
+import util.DBMetrics;
+import util.Histogram;
+import util.JfrLiveView;
+import util.SlowQueryLog;
+import util.StatementCache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Named("adminMetricsBean")
+@RequestScoped
+public class AdminMetricsBean implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<PoolRow> pools = new ArrayList<>();
+    private final List<MethodRow> methods = new ArrayList<>();
+    private final List<StatementRow> statements = new ArrayList<>();
+    private List<JobRun> jobRuns;
+
+    @PostConstruct
+    public void init() {
+        addPool(DBConnectionManager.getPool());
+        addPool(DBConnectionManager.getReplicaPool());
+
+        for (Map.Entry<String, DBMetrics.MethodStats> e : DBMetrics.getMethodStats().entrySet()) {
+            Histogram time = e.getValue().getTime();
+            Histogram rows = e.getValue().getRows();
+            methods.add(new MethodRow(e.getKey(), time.getCount(), time.getMean(),
+                    time.percentile(0.95), rows.getMean()));
+        }
+
+        for (Map.Entry<String, Histogram> e : DBMetrics.getStatementTimes().entrySet()) {
+            Histogram time = e.getValue();
+            statements.add(new StatementRow(e.getKey(), time.getCount(), time.percentile(0.5),
+                    time.percentile(0.95), time.percentile(0.99)));
+        }
+        // Slowest first
+        statements.sort((a, b) -> Double.compare(b.getP95Ms(), a.getP95Ms()));
+    }
+
+    private void addPool(ConnectionPool pool) {
+        if (pool != null) {
+            pools.add(new PoolRow(pool.getName(), pool.getActiveConnections(), pool.getIdleConnections(),
+                    pool.getPendingRequests(), pool.getMaxSize()));
+        }
+    }
+
+    // ================== GETTERS ==================
+    public List<PoolRow> getPools() {
+        return pools;
+    }
+
+    public List<MethodRow> getMethods() {
+        return methods;
+    }
+
+    public List<StatementRow> getStatements() {
+        return statements;
+    }
+
+    // Latest background job runs across all nodes, newest first
+    public List<JobRun> getJobRuns() {
+        if (jobRuns == null) {
+            jobRuns = new JobLeaseDAO().getRecentRuns(20);
+        }
+        return jobRuns;
+    }
+
+    public String getNodeId() {
+        return JobLeases.getOwner();
+    }
+
+    public String getHeldLeases() {
+        return JobLeases.getHeld().isEmpty() ? "none" : String.join(", ", JobLeases.getHeld());
+    }
+
+    // Most recent JFR request / DAO / M-Pesa events, newest first
+    public List<JfrLiveView.Row> getEvents() {
+        return JfrLiveView.getRecent();
+    }
+
+    public boolean isLiveViewRunning() {
+        return JfrLiveView.isRunning();
+    }
+
+    public long getSlowQueryThresholdMs() {
+        return SlowQueryLog.getThresholdMs();
+    }
+
+    public long getBorrowCount() {
+        return DBMetrics.getBorrowTimes().getCount();
+    }
+
+    public double getBorrowMeanMs() {
+        return DBMetrics.getBorrowTimes().getMean();
+    }
+
+    public double getBorrowP95Ms() {
+        return DBMetrics.getBorrowTimes().percentile(0.95);
+    }
+
+    public long getBorrowTimeouts() {
+        return DBMetrics.getBorrowTimeouts();
+    }
+
+    public long getLeaks() {
+        return DBMetrics.getLeaks();
+    }
+
+    public long getCacheHits() {
+        return StatementCache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return StatementCache.getMisses();
+    }
+
+    // ================== ROWS ==================
+    public static class PoolRow implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final int active;
+        private final int idle;
+        private final int pending;
+        private final int max;
+
+        public PoolRow(String name, int active, int idle, int pending, int max) {
+            this.name = name;
+            this.active = active;
+            this.idle = idle;
+            this.pending = pending;
+            this.max = max;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getPending() {
+            return pending;
+        }
+
+        public int getMax() {
+            return max;
+        }
+    }
+
+    public static class MethodRow implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String method;
+        private final long calls;
+        private final double meanMs;
+        private final double p95Ms;
+        private final double meanRows;
+
+        public MethodRow(String method, long calls, double meanMs, double p95Ms, double meanRows) {
+            this.method = method;
+            this.calls = calls;
+            this.meanMs = meanMs;
+            this.p95Ms = p95Ms;
+            this.meanRows = meanRows;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public double getMeanMs() {
+            return meanMs;
+        }
+
+        public double getP95Ms() {
+            return p95Ms;
+        }
+
+        public double getMeanRows() {
+            return meanRows;
+        }
+    }
+
+    public static class StatementRow implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String sql;
+        private final long calls;
+        private final double p50Ms;
+        private final double p95Ms;
+        private final double p99Ms;
+
+        public StatementRow(String sql, long calls, double p50Ms, double p95Ms, double p99Ms) {
+            this.sql = sql;
+            this.calls = calls;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public double getP50Ms() {
+            return p50Ms;
+        }
+
+        public double getP95Ms() {
+            return p95Ms;
+        }
+
+        public double getP99Ms() {
+            return p99Ms;
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package beans.admin;
 
 import dao.BillingDAO;
+import dao.DashboardStatsDAO;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
+import model.DashboardStats;
+import util.FanOut;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.LinkedHashMap;
@@ -17,12 +21,16 @@ public class AdminReportsBean implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    // Shared deadline for the report queries
+    private static final long QUERY_DEADLINE_MS = 5000;
+
     @Inject
     private BillingDAO billingDAO;
 
-    private int paidCount;
-    private int unpaidCount;
-    private int totalBills;
+    @Inject
+    private DashboardStatsDAO dashboardStatsDAO;
+
+    private DashboardStats stats;
 
     private String monthLabels; // JS array string e.g. ["Jan","Feb"]
     private String monthValues; // JS array string e.g. [1200,1500]
@@ -30,13 +38,18 @@ public class AdminReportsBean implements Serializable {
     @PostConstruct
     public void init() {
 
-        // ============ BASIC COUNTS ============
-        paidCount = billingDAO.getPaidBills().size();
-        unpaidCount = billingDAO.getUnpaidBills().size();
-        totalBills = paidCount + unpaidCount;
-
-        // ============ MONTHLY TOTALS ============
-        Map<String, Double> monthlyTotals = billingDAO.getMonthlyTotals();
+        // Headline figures and monthly totals are independent: run them concurrently
+        Map<String, Double> monthlyTotals;
+        try (FanOut fan = FanOut.within(QUERY_DEADLINE_MS)) {
+            // ============ HEADLINE FIGURES (shared snapshot) ============
+            FanOut.Task<DashboardStats> headline = fan.fork(dashboardStatsDAO::getStats);
+            // ============ MONTHLY TOTALS ============
+            FanOut.Task<Map<String, Double>> totals = fan.fork(billingDAO::getMonthlyTotals);
+            fan.join();
+
+            stats = headline.get(DashboardStats.empty());
+            monthlyTotals = totals.get(Collections.emptyMap());
+        }
 
         if (monthlyTotals == null || monthlyTotals.isEmpty()) {
             monthLabels = "[]";
@@ -70,15 +83,19 @@ public class AdminReportsBean implements Serializable {
 
     // ================== GETTERS ==================
     public int getPaidCount() {
-        return paidCount;
+        return stats.getPaidBills();
     }
 
     public int getUnpaidCount() {
-        return unpaidCount;
+        return stats.getUnpaidBills();
     }
 
     public int getTotalBills() {
-        return totalBills;
+        return stats.getTotalBills();
+    }
+
+    public DashboardStats getStats() {
+        return stats;
     }
 
     public String getMonthLabels() {
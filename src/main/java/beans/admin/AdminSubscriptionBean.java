@@ -1,30 +1,35 @@
 package beans.admin;
 
-import dao.SubscriptionDAO;
+import dao.ServiceDAO;
+import model.Service;
 import model.Subscription;
+import org.primefaces.model.LazyDataModel;
 
-import jakarta.inject.Inject;
+import jakarta.faces.view.ViewScoped;
 import jakarta.inject.Named;
-import jakarta.enterprise.context.RequestScoped;
 import java.io.Serializable;
 import java.util.List;
 
 @Named("adminSubscriptionBean")
-@RequestScoped
+@ViewScoped
 public class AdminSubscriptionBean implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
-    @Inject
-    private SubscriptionDAO subscriptionDAO;
+    // Pages are read on demand by the data table; kept for the view so page keys survive paging
+    private final LazyDataModel<Subscription> subscriptions = new SubscriptionLazyDataModel();
 
-    private List<Subscription> subscriptions;
+    private List<Service> services;
 
-    // Load subscriptions for display
-    public List<Subscription> getSubscriptions() {
-        if (subscriptions == null) {
-            subscriptions = subscriptionDAO.getAllSubscriptions();
-        }
+    public LazyDataModel<Subscription> getSubscriptions() {
         return subscriptions;
     }
+
+    // Options for the service filter
+    public List<Service> getServices() {
+        if (services == null) {
+            services = new ServiceDAO().getAllServices();
+        }
+        return services;
+    }
 }
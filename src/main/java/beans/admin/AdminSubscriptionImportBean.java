@@ -0,0 +1,79 @@
+package beans.admin;
+
+import jobs.SubscriptionImport;
+import org.primefaces.model.file.UploadedFile;
+import util.DBConnectionManager;
+
+import jakarta.faces.application.FacesMessage;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.view.ViewScoped;
+import jakarta.inject.Named;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+@Named("adminSubscriptionImportBean")
+@ViewScoped
+public class AdminSubscriptionImportBean implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient UploadedFile file;
+
+    // Running or finished import of this view
+    private transient SubscriptionImport job;
+
+    // ============================
+    // Start import
+    // ============================
+    public void upload() {
+        if (file == null || file.getSize() == 0) {
+            addMessage(FacesMessage.SEVERITY_ERROR, "Choose a CSV file to import.");
+            return;
+        }
+        if (job != null && !job.isDone()) {
+            addMessage(FacesMessage.SEVERITY_WARN, "An import is already running.");
+            return;
+        }
+
+        // Spool to disk (streamed, never held in memory); the import deletes it when done
+        try (InputStream in = file.getInputStream()) {
+            Path tmp = Files.createTempFile("subscription-import-", ".csv");
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+
+            job = SubscriptionImport.start(tmp,
+                    DBConnectionManager.getIntProperty("import.subscriptions.chunkSize", 500));
+            addMessage(FacesMessage.SEVERITY_INFO, "Import of " + file.getFileName() + " started.");
+
+        } catch (IOException e) {
+            System.err.println("[AdminSubscriptionImportBean] Upload failed: " + e.getMessage());
+            addMessage(FacesMessage.SEVERITY_ERROR, "Could not read the uploaded file.");
+        }
+    }
+
+    private void addMessage(FacesMessage.Severity severity, String msg) {
+        FacesContext.getCurrentInstance().addMessage(null, new FacesMessage(severity, msg, null));
+    }
+
+    // ============================
+    // Getters & Setters
+    // ============================
+    public UploadedFile getFile() {
+        return file;
+    }
+
+    public void setFile(UploadedFile file) {
+        this.file = file;
+    }
+
+    public SubscriptionImport getJob() {
+        return job;
+    }
+
+    public boolean isRunning() {
+        return job != null && !job.isDone();
+    }
+}
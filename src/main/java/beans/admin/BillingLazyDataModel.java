@@ -0,0 +1,87 @@
+package beans.admin;
+
+import dao.BillingDAO;
+import dao.KeysetPage;
+import model.Billing;
+import model.BillingFilter;
+import org.primefaces.model.FilterMeta;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lazy model for one tab (unpaid or paid) of the admin billing table, paged
+ * by keyset seek (see KeysetLazyDataModel).
+ *
+ * When a bill on the page changes status only that row is swapped in
+ * (replace) and the counts are nudged (adjustCount): the bill stays on the
+ * page showing its new status until the next page read drops it.
+ */
+public class BillingLazyDataModel extends KeysetLazyDataModel<Billing, BillingFilter> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final BillingDAO DAO = new BillingDAO();
+
+    private final boolean paid;
+
+    public BillingLazyDataModel(boolean paid) {
+        this.paid = paid;
+    }
+
+    public boolean isPaid() {
+        return paid;
+    }
+
+    @Override
+    protected int countRows(BillingFilter filter) {
+        return DAO.countBills(filter);
+    }
+
+    @Override
+    protected List<Billing> readPage(BillingFilter filter, String sortField, boolean ascending,
+            KeysetPage.Key after, int first, int pageSize) {
+        return DAO.getBillsPage(filter, sortField, ascending, after, first, pageSize);
+    }
+
+    @Override
+    protected KeysetPage.Key keyOf(Billing b, String sortField) {
+        return BillingDAO.pageKey(b, sortField);
+    }
+
+    @Override
+    protected int idOf(Billing b) {
+        return b.getId();
+    }
+
+    @Override
+    protected BillingFilter toFilter(Map<String, FilterMeta> filterBy) {
+        BillingFilter f = new BillingFilter();
+        f.setPaid(paid);
+
+        for (FilterMeta meta : filterBy.values()) {
+            Object value = meta.getFilterValue();
+            if (value == null || "".equals(value)) {
+                continue;
+            }
+
+            switch (meta.getField()) {
+                case "customerName" ->
+                    f.setCustomerName(value.toString());
+                case "serviceId" ->
+                    f.setServiceId(Integer.parseInt(value.toString()));
+                case "billingDate" -> {
+                    Date[] days = dayRange(value);
+                    if (days != null) {
+                        f.setBilledFrom(days[0]);
+                        f.setBilledTo(days[1]);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return f;
+    }
+}
@@ -0,0 +1,191 @@
+package beans.admin;
+
+import dao.KeysetPage;
+import org.primefaces.model.FilterMeta;
+import org.primefaces.model.LazyDataModel;
+import org.primefaces.model.SortMeta;
+import util.DBConnectionManager;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Lazy model for an admin table whose pages are read by keyset seek
+ * (dao.KeysetPage): each request reads one page.
+ *
+ * PrimeFaces asks for pages by row index. The last key of every page read
+ * is remembered against the index of the page after it, so next / previous
+ * and revisited pages are read by seek; only a jump to a page never
+ * reached in order falls back to OFFSET. The remembered keys and the row
+ * count are dropped whenever the sort or filters change; the count is also
+ * re-read once it is older than admin.tables.countTtlMs, so rows added or
+ * changed meanwhile show up in the paginator.
+ *
+ * F is the table's filter; it must implement equals().
+ */
+public abstract class KeysetLazyDataModel<T, F> extends LazyDataModel<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long COUNT_TTL_MS = DBConnectionManager.getIntProperty("admin.tables.countTtlMs", 30000);
+
+    // first row index -> key of the row just before it, for the current sort/filter
+    private final Map<Integer, KeysetPage.Key> pageStarts = new HashMap<>();
+    private String sortField;
+    private boolean ascending;
+    private F filter;
+    private int count = -1;
+    private long countedAt;
+
+    // =============================================
+    // PER TABLE
+    // =============================================
+    protected abstract F toFilter(Map<String, FilterMeta> filterBy);
+
+    protected abstract int countRows(F filter);
+
+    protected abstract List<T> readPage(F filter, String sortField, boolean ascending,
+            KeysetPage.Key after, int first, int pageSize);
+
+    protected abstract KeysetPage.Key keyOf(T row, String sortField);
+
+    protected abstract int idOf(T row);
+
+    // =============================================
+    // LazyDataModel
+    // =============================================
+    @Override
+    public int count(Map<String, FilterMeta> filterBy) {
+        reset(sortField, ascending, toFilter(filterBy));
+        long now = System.currentTimeMillis();
+        if (count < 0 || now - countedAt >= COUNT_TTL_MS) {
+            count = countRows(filter);
+            countedAt = now;
+        }
+        return count;
+    }
+
+    @Override
+    public List<T> load(int first, int pageSize, Map<String, SortMeta> sortBy, Map<String, FilterMeta> filterBy) {
+        String field = null;
+        boolean asc = false;
+
+        Iterator<SortMeta> sorts = sortBy.values().iterator();
+        if (sorts.hasNext()) {
+            SortMeta sort = sorts.next();
+            field = sort.getField();
+            asc = sort.getOrder().isAscending();
+        }
+        reset(field, asc, toFilter(filterBy));
+
+        List<T> page = readPage(filter, sortField, ascending, first > 0 ? pageStarts.get(first) : null,
+                first, pageSize);
+
+        if (page.size() == pageSize) {
+            pageStarts.put(first + pageSize, keyOf(page.get(pageSize - 1), sortField));
+        }
+        return page;
+    }
+
+    @Override
+    public String getRowKey(T row) {
+        return String.valueOf(idOf(row));
+    }
+
+    @Override
+    public T getRowData(String rowKey) {
+        List<T> page = getWrappedData();
+        if (page != null) {
+            for (T row : page) {
+                if (String.valueOf(idOf(row)).equals(rowKey)) {
+                    return row;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Swaps the row with the same id on the current page for the re-read one; returns the old row or null
+    public T replace(T updated) {
+        List<T> page = getWrappedData();
+        if (page == null) {
+            return null;
+        }
+        for (int i = 0; i < page.size(); i++) {
+            if (idOf(page.get(i)) == idOf(updated)) {
+                return page.set(i, updated);
+            }
+        }
+        return null;
+    }
+
+    // A row moved into (+1) or out of (-1) this table; saves a COUNT(*) per change
+    public void adjustCount(int delta) {
+        if (count >= 0) {
+            count = Math.max(0, count + delta);
+            setRowCount(count);
+        }
+    }
+
+    // Rows changed in bulk: recount and drop page keys on the next read
+    public void invalidate() {
+        count = -1;
+        pageStarts.clear();
+    }
+
+    // =============================================
+    // HELPERS
+    // =============================================
+    private void reset(String field, boolean asc, F f) {
+        if (!f.equals(filter)) {
+            count = -1;
+            pageStarts.clear();
+        } else if (!Objects.equals(field, sortField) || asc != ascending) {
+            pageStarts.clear();
+        }
+        sortField = field;
+        ascending = asc;
+        filter = f;
+    }
+
+    /**
+     * Days chosen in a date filter as [from, to): a range date picker value
+     * [first, last] (both days inclusive) or a single day. Null when the
+     * value is not a date.
+     */
+    protected static Date[] dayRange(Object value) {
+        Object first = value;
+        Object last = value;
+        if (value instanceof Collection<?> range) {
+            if (range.isEmpty()) {
+                return null;
+            }
+            Iterator<?> it = range.iterator();
+            first = it.next();
+            last = it.hasNext() ? it.next() : first;
+        }
+
+        Date from = startOfDay(first, 0);
+        Date to = startOfDay(last, 1);
+        return from == null || to == null ? null : new Date[]{from, to};
+    }
+
+    private static Date startOfDay(Object value, int plusDays) {
+        LocalDate day;
+        if (value instanceof LocalDate d) {
+            day = d;
+        } else if (value instanceof Date d) {
+            day = d.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        } else {
+            return null;
+        }
+        return Date.from(day.plusDays(plusDays).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
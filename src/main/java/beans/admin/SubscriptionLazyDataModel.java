@@ -0,0 +1,74 @@
+package beans.admin;
+
+import dao.KeysetPage;
+import dao.SubscriptionDAO;
+import model.Subscription;
+import model.SubscriptionFilter;
+import org.primefaces.model.FilterMeta;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lazy model for the admin subscription table, paged by keyset seek (see
+ * KeysetLazyDataModel).
+ */
+public class SubscriptionLazyDataModel extends KeysetLazyDataModel<Subscription, SubscriptionFilter> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final SubscriptionDAO DAO = new SubscriptionDAO();
+
+    @Override
+    protected int countRows(SubscriptionFilter filter) {
+        return DAO.countSubscriptions(filter);
+    }
+
+    @Override
+    protected List<Subscription> readPage(SubscriptionFilter filter, String sortField, boolean ascending,
+            KeysetPage.Key after, int first, int pageSize) {
+        return DAO.getSubscriptionsPage(filter, sortField, ascending, after, first, pageSize);
+    }
+
+    @Override
+    protected KeysetPage.Key keyOf(Subscription s, String sortField) {
+        return SubscriptionDAO.pageKey(s, sortField);
+    }
+
+    @Override
+    protected int idOf(Subscription s) {
+        return s.getId();
+    }
+
+    @Override
+    protected SubscriptionFilter toFilter(Map<String, FilterMeta> filterBy) {
+        SubscriptionFilter f = new SubscriptionFilter();
+
+        for (FilterMeta meta : filterBy.values()) {
+            Object value = meta.getFilterValue();
+            if (value == null || "".equals(value)) {
+                continue;
+            }
+
+            switch (meta.getField()) {
+                case "customerName" ->
+                    f.setCustomerName(value.toString());
+                case "status" ->
+                    f.setStatus(value.toString());
+                case "serviceId" ->
+                    f.setServiceId(Integer.parseInt(value.toString()));
+                case "purchaseDate" -> {
+                    Date[] days = dayRange(value);
+                    if (days != null) {
+                        f.setPurchasedFrom(days[0]);
+                        f.setPurchasedTo(days[1]);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return f;
+    }
+}
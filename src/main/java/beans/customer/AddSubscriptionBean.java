@@ -12,11 +12,12 @@ import jakarta.inject.Named;
 
 import model.Billing;
 import model.Service;
+import util.ExpiryCalculator;
+import util.UnitOfWork;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.time.temporal.ChronoUnit;
 
 @Named("addSubscriptionBean")
 @ViewScoped
@@ -66,28 +67,50 @@ public class AddSubscriptionBean implements Serializable {
             return;
         }
 
-        // 3️⃣ Load service
-        Service service = serviceDAO.getServiceById(serviceId);
-        if (service == null) {
-            addFlash("error", "Service not found.");
-            redirect("services.xhtml");
-            return;
-        }
+        // Steps 3-6 share one connection and commit once: no subscription without its bill
+        Service[] service = new Service[1];
 
-        // 4️⃣ Calculate dates
-        LocalDateTime purchaseDate = LocalDateTime.now();
-        LocalDateTime expiryDate = calculateExpiry(purchaseDate, service);
+        boolean added = UnitOfWork.inTransaction(() -> {
 
-        java.util.Date purchase = java.util.Date.from(
-                purchaseDate.atZone(ZoneId.systemDefault()).toInstant()
-        );
+            // 3️⃣ Load service
+            service[0] = serviceDAO.getServiceById(serviceId);
+            if (service[0] == null) {
+                return false;
+            }
+
+            // 4️⃣ Calculate dates
+            LocalDateTime purchaseDate = LocalDateTime.now();
+            LocalDateTime expiryDate = ExpiryCalculator.calculateExpiry(purchaseDate, service[0]);
 
-        java.util.Date expiry = java.util.Date.from(
-                expiryDate.atZone(ZoneId.systemDefault()).toInstant()
-        );
+            java.util.Date purchase = java.util.Date.from(
+                    purchaseDate.atZone(ZoneId.systemDefault()).toInstant()
+            );
 
-        // 5️⃣ Add subscription into DB
-        boolean added = subDAO.addSubscription(customerId, serviceId, purchase, expiry);
+            java.util.Date expiry = java.util.Date.from(
+                    expiryDate.atZone(ZoneId.systemDefault()).toInstant()
+            );
+
+            // 5️⃣ Add subscription into DB
+            if (!subDAO.addSubscription(customerId, serviceId, purchase, expiry)) {
+                return false;
+            }
+
+            // 6️⃣ Create billing record
+            Billing bill = new Billing();
+            bill.setCustomerId(customerId);
+            bill.setServiceId(serviceId);
+            bill.setAmount(service[0].getCharge());
+            bill.setBillingDate(purchase);
+            bill.setPaid(false);
+
+            return billingDAO.generateBill(bill);
+        });
+
+        if (service[0] == null) {
+            addFlash("error", "Service not found.");
+            redirect("services.xhtml");
+            return;
+        }
 
         if (!added) {
             addFlash("error", "Failed to add subscription.");
@@ -95,52 +118,11 @@ public class AddSubscriptionBean implements Serializable {
             return;
         }
 
-        // 6️⃣ Create billing record
-        Billing bill = new Billing();
-        bill.setCustomerId(customerId);
-        bill.setServiceId(serviceId);
-        bill.setAmount(service.getCharge());
-        bill.setBillingDate(purchase);
-        bill.setPaid(false);
-
-        billingDAO.generateBill(bill);
-
         // 7️⃣ Redirect with Flash success
         addFlash("success", "Subscription added successfully!");
         redirect("subscriptions.xhtml");
     }
 
-    // ------------------------------------
-    // Expiry Calculator
-    // ------------------------------------
-    private LocalDateTime calculateExpiry(LocalDateTime start, Service service) {
-        int duration = service.getDurationValue();
-        String unit = service.getDurationUnit().toUpperCase();
-
-        switch (unit) {
-            case "MINUTE" -> {
-                return start.plus(duration, ChronoUnit.MINUTES);
-            }
-            case "HOUR" -> {
-                return start.plus(duration, ChronoUnit.HOURS);
-            }
-            case "DAY" -> {
-                return start.plus(duration, ChronoUnit.DAYS);
-            }
-            case "WEEK" -> {
-                return start.plus(duration * 7L, ChronoUnit.DAYS); // alternative to ChronoUnit.WEEKS
-            }
-            case "MONTH" -> {
-                return start.plus(duration, ChronoUnit.MONTHS);
-            }
-            case "YEAR" -> {
-                return start.plus(duration, ChronoUnit.YEARS);
-            }
-            default ->
-                throw new IllegalArgumentException("Unknown duration unit: " + unit);
-        }
-    }
-
     // ------------------------------------
     // Flash Message (success / error)
     // ------------------------------------
@@ -13,6 +13,7 @@ import jakarta.inject.Inject;
 import jakarta.inject.Named;
 
 import model.Billing;
+import util.FanOut;
 
 import java.io.IOException;
 import java.io.Serializable;
@@ -25,6 +26,9 @@ public class CustomerBillingBean implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    // Shared deadline for the two bill list queries
+    private static final long QUERY_DEADLINE_MS = 5000;
+
     @Inject
     private BillingDAO billingDAO;
 
@@ -45,6 +49,9 @@ public class CustomerBillingBean implements Serializable {
 
     private boolean paymentInitiated = false;
 
+    // Paid tab also lists archived bills
+    private boolean includeHistory = false;
+
     // =========================
     // Bean initialization
     // =========================
@@ -81,8 +88,14 @@ public class CustomerBillingBean implements Serializable {
             return;
         }
 
-        paidList = billingDAO.getPaidBillsByCustomer(customerId);
-        unpaidList = billingDAO.getUnpaidBillsByCustomer(customerId);
+        try (FanOut fan = FanOut.within(QUERY_DEADLINE_MS)) {
+            FanOut.Task<List<Billing>> paid = fan.fork(() -> billingDAO.getPaidBillsByCustomer(customerId, includeHistory));
+            FanOut.Task<List<Billing>> unpaid = fan.fork(() -> billingDAO.getUnpaidBillsByCustomer(customerId));
+            fan.join();
+
+            paidList = paid.get(new ArrayList<>());
+            unpaidList = unpaid.get(new ArrayList<>());
+        }
     }
 
     private Integer getLoggedCustomerId() {
@@ -107,6 +120,16 @@ public class CustomerBillingBean implements Serializable {
         loadData();
     }
 
+    public void toggleHistory() {
+        includeHistory = !includeHistory;
+        setActiveTab("paid");
+        loadData();
+    }
+
+    public boolean isIncludeHistory() {
+        return includeHistory;
+    }
+
     // =========================
     // Initiate M-PESA STK push safely
     // =========================
@@ -7,8 +7,10 @@ import jakarta.faces.context.FacesContext;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import beans.LoginBean;
+import util.FanOut;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -18,6 +20,9 @@ public class CustomerReportsBean implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    // Shared deadline for the report queries
+    private static final long QUERY_DEADLINE_MS = 5000;
+
     @Inject
     private BillingDAO billingDAO;
 
@@ -41,14 +46,21 @@ public class CustomerReportsBean implements Serializable {
             return;
         }
 
-        // Counts for customer
-        paidCount = billingDAO.countPaidBillsByCustomer(customerId);
-        unpaidCount = billingDAO.countUnpaidBillsByCustomer(customerId);
+        // Counts and monthly totals are independent: run them concurrently
+        Map<String, Double> monthlyTotals;
+        try (FanOut fan = FanOut.within(QUERY_DEADLINE_MS)) {
+            FanOut.Task<Integer> paid = fan.fork(() -> billingDAO.countPaidBillsByCustomer(customerId));
+            FanOut.Task<Integer> unpaid = fan.fork(() -> billingDAO.countUnpaidBillsByCustomer(customerId));
+            // ===== Monthly totals for THIS customer only (Double) =====
+            FanOut.Task<Map<String, Double>> totals = fan.fork(() -> billingDAO.getMonthlyTotalsByCustomer(customerId));
+            fan.join();
+
+            paidCount = paid.get(0);
+            unpaidCount = unpaid.get(0);
+            monthlyTotals = totals.get(Collections.emptyMap());
+        }
         totalBills = paidCount + unpaidCount;
 
-        // ===== Monthly totals for THIS customer only (Double) =====
-        Map<String, Double> monthlyTotals = billingDAO.getMonthlyTotalsByCustomer(customerId);
-
         // Convert keys to JS array: ["2025-01","2025-02"]
         monthLabels = monthlyTotals.keySet()
                 .stream()
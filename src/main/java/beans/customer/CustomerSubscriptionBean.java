@@ -19,6 +19,10 @@ public class CustomerSubscriptionBean implements Serializable {
     private static final long serialVersionUID = 1L;
 
     private List<Subscription> subscriptions;
+    private int customerId;
+
+    // Also list archived subscriptions
+    private boolean includeHistory;
 
     private final SubscriptionDAO dao = new SubscriptionDAO();
 
@@ -39,7 +43,7 @@ public class CustomerSubscriptionBean implements Serializable {
             return;
         }
 
-        int customerId = loginBean.getCustomerId();
+        customerId = loginBean.getCustomerId();
         System.out.println("🔍 Loading subscriptions for customerId = " + customerId);
 
         subscriptions = dao.getSubscriptionsByCustomerId(customerId);
@@ -49,6 +53,34 @@ public class CustomerSubscriptionBean implements Serializable {
         }
     }
 
+    // ============================
+    // Turn auto-renewal on / off
+    // ============================
+    public void toggleAutoRenew(Subscription s) {
+        if (customerId == 0 || s == null) {
+            return;
+        }
+
+        if (dao.setAutoRenew(customerId, s.getId(), !s.isAutoRenew())) {
+            subscriptions = dao.getSubscriptionsByCustomerId(customerId, includeHistory);
+        }
+    }
+
+    // ============================
+    // Show / hide archived subscriptions
+    // ============================
+    public void toggleHistory() {
+        if (customerId == 0) {
+            return;
+        }
+        includeHistory = !includeHistory;
+        subscriptions = dao.getSubscriptionsByCustomerId(customerId, includeHistory);
+    }
+
+    public boolean isIncludeHistory() {
+        return includeHistory;
+    }
+
     // ============================
     // Getters
     // ============================
@@ -0,0 +1,104 @@
+package com.telecom.telecomcustomerserviceportal.resources;
+
+import dao.BillingDAO;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Response;
+import model.BillSettlement;
+import model.BillSettlement.Outcome;
+import util.DBConnectionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Bulk settle / reverse of bills for statement reconciliation (admin only:
+ * the path is under /admin/, see RoleFilter).
+ *
+ * POST resources/admin/billing/settlement?action=settle   (or reverse)
+ * Content-Type: text/csv
+ * X-Requested-By: any non-blank value (e.g. the script name)
+ *
+ * The request is authenticated by the session cookie alone, so it must not
+ * be something another site can make the browser send: text/csv is not a
+ * CORS-safelisted type (no form can post it, and a cross-site fetch needs a
+ * preflight this app never answers), and neither is the custom header. A
+ * request without the header is refused with 403.
+ *
+ * The body is the bill ids, separated by commas, spaces or new lines (a
+ * statement export with one id per line works as is). The response is a
+ * CSV with the outcome of every id: UPDATED, UNCHANGED, NOT_FOUND, FAILED,
+ * or INVALID for tokens that are not an id.
+ */
+@Path("admin/billing/settlement")
+public class BillSettlementResource {
+
+    private static final int CHUNK_SIZE = DBConnectionManager.getIntProperty("billing.bulk.chunkSize", 500);
+    private static final int MAX_IDS = DBConnectionManager.getIntProperty("billing.bulk.maxIds", 50000);
+
+    private static final String REQUESTED_BY = "X-Requested-By";
+
+    @POST
+    @Consumes("text/csv")
+    public Response settle(@QueryParam("action") String action,
+            @HeaderParam(REQUESTED_BY) String requestedBy, InputStream body) {
+        if (requestedBy == null || requestedBy.isBlank()) {
+            return error(Response.Status.FORBIDDEN, REQUESTED_BY + " header required");
+        }
+
+        boolean paid;
+        if ("settle".equalsIgnoreCase(action)) {
+            paid = true;
+        } else if ("reverse".equalsIgnoreCase(action)) {
+            paid = false;
+        } else {
+            return badRequest("action must be settle or reverse");
+        }
+
+        BillSettlement settlement = new BillSettlement(paid);
+        try {
+            if (!settlement.read(new InputStreamReader(body, StandardCharsets.UTF_8), MAX_IDS)) {
+                return badRequest("at most " + MAX_IDS + " bill ids per request");
+            }
+        } catch (IOException e) {
+            System.err.println("[BillSettlementResource] Could not read request: " + e.getMessage());
+            return badRequest("could not read the request body");
+        }
+
+        settlement.setOutcomes(new BillingDAO().settleBills(settlement.getIds(), paid, CHUNK_SIZE));
+
+        StringBuilder csv = new StringBuilder(settlement.getOutcomes().size() * 16 + 16);
+        csv.append("id,outcome\n");
+        for (Map.Entry<Integer, Outcome> e : settlement.getOutcomes().entrySet()) {
+            csv.append(e.getKey()).append(',').append(e.getValue()).append('\n');
+        }
+        // Only the first invalid tokens are kept; echoed back quoted, formula-safe as in the export
+        for (String token : settlement.getInvalid()) {
+            char first = token.charAt(0);
+            String safe = first == '=' || first == '+' || first == '-' || first == '@' ? "'" + token : token;
+            csv.append('"').append(safe.replace("\"", "\"\"")).append("\",INVALID\n");
+        }
+
+        return Response.ok(csv.toString(), "text/csv; charset=utf-8")
+                .header("X-Bills-Updated", settlement.getUpdated())
+                .header("X-Bills-Failed", settlement.getFailed())
+                .build();
+    }
+
+    private static Response badRequest(String message) {
+        return error(Response.Status.BAD_REQUEST, message);
+    }
+
+    private static Response error(Response.Status status, String message) {
+        return Response.status(status)
+                .type("text/plain; charset=utf-8")
+                .entity(message)
+                .build();
+    }
+}
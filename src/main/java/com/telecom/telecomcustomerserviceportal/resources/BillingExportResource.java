@@ -0,0 +1,175 @@
+package com.telecom.telecomcustomerserviceportal.resources;
+
+import dao.BillingDAO;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import model.Billing;
+import util.DBConnectionManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Billing ledger download for finance (admin only: the path is under
+ * /admin/, see RoleFilter).
+ *
+ * GET resources/admin/billing/export?from=2025-01-01&amp;to=2025-01-31&amp;paid=true&amp;format=csv.gz
+ *
+ * from / to are inclusive days, paid is true, false or empty (both),
+ * format is csv (default) or csv.gz, history=false leaves out archived
+ * bills. Rows go from a server-side cursor straight into the chunked
+ * response through a small buffer, so memory use is the same for ten rows
+ * or ten million.
+ */
+@Path("admin/billing/export")
+public class BillingExportResource {
+
+    private static final int FETCH_SIZE = DBConnectionManager.getIntProperty("export.billing.fetchSize", 1000);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    private static final String HEADER = "id,billing_date,customer_id,customer_name,customer_email,"
+            + "service_id,service_name,amount,paid\n";
+
+    @GET
+    public Response export(@QueryParam("from") String from, @QueryParam("to") String to,
+            @QueryParam("paid") String paid, @QueryParam("format") @DefaultValue("csv") String format,
+            @QueryParam("history") @DefaultValue("true") boolean history) {
+
+        Date fromDate;
+        Date toDate;
+        try {
+            fromDate = startOfDay(from, 0);
+            toDate = startOfDay(to, 1);
+        } catch (DateTimeParseException e) {
+            return badRequest("from / to must be yyyy-MM-dd");
+        }
+
+        String paidValue = paid == null ? "" : paid.trim();
+        if (!paidValue.isEmpty() && !"true".equalsIgnoreCase(paidValue) && !"false".equalsIgnoreCase(paidValue)) {
+            return badRequest("paid must be true, false or empty");
+        }
+        Boolean paidFilter = paidValue.isEmpty() ? null : Boolean.valueOf(paidValue);
+
+        boolean gzip = "csv.gz".equalsIgnoreCase(format);
+        if (!gzip && !"csv".equalsIgnoreCase(format)) {
+            return badRequest("format must be csv or csv.gz");
+        }
+
+        String fileName = "billing-ledger" + (from != null && !from.isBlank() ? "-" + from.trim() : "")
+                + (to != null && !to.isBlank() ? "-to-" + to.trim() : "") + (gzip ? ".csv.gz" : ".csv");
+
+        StreamingOutput body = out -> write(gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out,
+                fromDate, toDate, paidFilter, history);
+
+        return Response.ok(body, gzip ? "application/gzip" : "text/csv; charset=utf-8")
+                .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
+                .build();
+    }
+
+    private void write(OutputStream out, Date from, Date to, Boolean paid, boolean history) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        w.write(HEADER);
+
+        try {
+            new BillingDAO().exportLedger(from, to, paid, history, FETCH_SIZE, bill -> {
+                try {
+                    writeRow(w, bill);
+                } catch (IOException e) {
+                    // client went away: abort the cursor
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (SQLException e) {
+            // Part of the file may be sent already; aborting leaves it visibly truncated
+            System.err.println("[BillingExportResource] Export failed: " + e.getMessage());
+            throw new IOException("Export failed", e);
+        }
+
+        // Also writes the gzip trailer
+        w.close();
+    }
+
+    private static void writeRow(Writer w, Billing b) throws IOException {
+        w.write(Integer.toString(b.getId()));
+        w.write(',');
+        if (b.getBillingDate() != null) {
+            w.write(TIMESTAMP.format(b.getBillingDate().toInstant()));
+        }
+        w.write(',');
+        w.write(Integer.toString(b.getCustomerId()));
+        w.write(',');
+        writeText(w, b.getCustomerName());
+        w.write(',');
+        writeText(w, b.getCustomerEmail());
+        w.write(',');
+        w.write(Integer.toString(b.getServiceId()));
+        w.write(',');
+        writeText(w, b.getServiceName());
+        w.write(',');
+        w.write(BigDecimal.valueOf(b.getAmount()).toPlainString());
+        w.write(',');
+        w.write(b.isPaid() ? "true" : "false");
+        w.write('\n');
+    }
+
+    /**
+     * RFC 4180 quoting. Text starting with = + - @ is prefixed with ' so a
+     * spreadsheet opening the ledger does not run it as a formula.
+     */
+    private static void writeText(Writer w, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') {
+            value = "'" + value;
+        }
+
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            w.write(value);
+            return;
+        }
+        w.write('"');
+        w.write(value.replace("\"", "\"\""));
+        w.write('"');
+    }
+
+    // Start of day (+ plusDays) in server time, or null for a blank value
+    private static Date startOfDay(String day, int plusDays) {
+        if (day == null || day.isBlank()) {
+            return null;
+        }
+        return Date.from(LocalDate.parse(day.trim()).plusDays(plusDays)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Response badRequest(String message) {
+        return Response.status(Response.Status.BAD_REQUEST)
+                .type("text/plain; charset=utf-8")
+                .entity(message)
+                .build();
+    }
+}
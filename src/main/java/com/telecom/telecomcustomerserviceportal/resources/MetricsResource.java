@@ -0,0 +1,26 @@
+package com.telecom.telecomcustomerserviceportal.resources;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Response;
+import util.DBMetrics;
+
+/**
+ * Database and pool metrics in Prometheus text format.
+ *
+ * Readable by a logged-in admin, or without a session by a scraper sending
+ * "Authorization: Bearer &lt;metrics.scrape.token&gt;" (see RoleFilter). A
+ * Prometheus job sets it with authorization: { credentials: ... }.
+ */
+@Path("metrics")
+public class MetricsResource {
+
+    @GET
+    @Produces("text/plain; version=0.0.4; charset=utf-8")
+    public Response scrape() {
+        return Response
+                .ok(DBMetrics.toPrometheus())
+                .build();
+    }
+}
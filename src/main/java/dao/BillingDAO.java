@@ -1,11 +1,18 @@
 package dao;
 
+import model.BillSettlement.Outcome;
 import model.Billing;
-import util.DBConnectionManager;
+import model.BillingFilter;
+import util.JdbcTemplate;
+import util.JdbcTemplate.RowMapperFactory;
+import util.UnitOfWork;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import java.io.Serializable;
 import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 
 @ApplicationScoped
@@ -13,352 +20,743 @@ public class BillingDAO implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
-    // Generate a Bill
+    private static final String ADMIN_SELECT = "SELECT b.*, c.name AS customer_name, c.email AS customer_email, "
+            + "s.name AS service_name "
+            + "FROM billing b "
+            + "LEFT JOIN customers c ON b.customer_id = c.id "
+            + "LEFT JOIN services s ON b.service_id = s.id ";
+
+    // ADMIN_SELECT over archived bills (billing_history)
+    private static final String ADMIN_HISTORY_SELECT = "SELECT b.*, c.name AS customer_name, c.email AS customer_email, "
+            + "s.name AS service_name "
+            + "FROM billing_history b "
+            + "LEFT JOIN customers c ON b.customer_id = c.id "
+            + "LEFT JOIN services s ON b.service_id = s.id ";
+
+    private static final String CUSTOMER_SELECT = "SELECT b.*, s.name AS service_name "
+            + "FROM billing b "
+            + "LEFT JOIN services s ON b.service_id = s.id ";
+
+    // Same row shape over billing UNION ALL billing_history (archived, paid only)
+    private static final String CUSTOMER_SELECT_WITH_HISTORY = "SELECT b.*, s.name AS service_name "
+            + "FROM (SELECT id, customer_id, service_id, amount, billing_date, paid FROM billing WHERE customer_id = ? "
+            + "      UNION ALL "
+            + "      SELECT id, customer_id, service_id, amount, billing_date, paid FROM billing_history WHERE customer_id = ?) b "
+            + "LEFT JOIN services s ON b.service_id = s.id ";
+
+    private static final String ARCHIVE_COLUMNS = "id, customer_id, service_id, amount, billing_date, paid";
+
+    // Adds counts/amounts to one rollup row, month given as 'yyyy-MM-01' (deltas may be negative)
+    private static final String ROLLUP_UPSERT = "INSERT INTO billing_monthly_rollup "
+            + "(month, customer_id, service_id, bill_count, total_amount, paid_count, paid_amount) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE bill_count = bill_count + VALUES(bill_count), "
+            + "total_amount = total_amount + VALUES(total_amount), "
+            + "paid_count = paid_count + VALUES(paid_count), "
+            + "paid_amount = paid_amount + VALUES(paid_amount)";
+
+    // Rollup rows for one month, recomputed from billing and billing_history
+    private static final String ROLLUP_REBUILD = "INSERT INTO billing_monthly_rollup "
+            + "(month, customer_id, service_id, bill_count, total_amount, paid_count, paid_amount) "
+            + "SELECT ?, b.customer_id, b.service_id, COUNT(*), COALESCE(SUM(b.amount), 0), "
+            + "SUM(b.paid = 1), COALESCE(SUM(IF(b.paid = 1, b.amount, 0)), 0) "
+            + "FROM (SELECT customer_id, service_id, amount, paid FROM billing "
+            + "      WHERE billing_date >= ? AND billing_date < ? + INTERVAL 1 MONTH "
+            + "      UNION ALL "
+            + "      SELECT customer_id, service_id, amount, paid FROM billing_history "
+            + "      WHERE billing_date >= ? AND billing_date < ? + INTERVAL 1 MONTH) b "
+            + "GROUP BY b.customer_id, b.service_id";
+
+    // Cheap fingerprint of one month's rollup, to tell whether a rebuild changed it
+    private static final String ROLLUP_CHECKSUM = "SELECT CONCAT_WS('/', COUNT(*), SUM(bill_count), "
+            + "SUM(paid_count), ROUND(SUM(total_amount), 2), ROUND(SUM(paid_amount), 2)) "
+            + "FROM billing_monthly_rollup WHERE month = ?";
+
+    // Billing row mapper: customer/service columns are optional (0 = not selected)
+    private static final RowMapperFactory<Billing> BILLING = cols -> {
+        int id = cols.of("id");
+        int customerId = cols.of("customer_id");
+        int serviceId = cols.of("service_id");
+        int amount = cols.of("amount");
+        int billingDate = cols.of("billing_date");
+        int paid = cols.of("paid");
+        int serviceName = cols.of("service_name");
+        int customerName = cols.of("customer_name");
+        int customerEmail = cols.of("customer_email");
+
+        return rs -> {
+            Billing bill = new Billing();
+            bill.setId(rs.getInt(id));
+            bill.setCustomerId(rs.getInt(customerId));
+            bill.setServiceId(rs.getInt(serviceId));
+            bill.setAmount(rs.getDouble(amount));
+            bill.setBillingDate(JdbcTemplate.getDate(rs, billingDate));
+            bill.setPaid(rs.getBoolean(paid));
+            bill.setServiceName(JdbcTemplate.getString(rs, serviceName));
+            bill.setCustomerName(JdbcTemplate.getString(rs, customerName));
+            bill.setCustomerEmail(JdbcTemplate.getString(rs, customerEmail));
+            return bill;
+        };
+    };
+
+    // (month, total) pairs, kept in query order
+    private static final RowMapperFactory<Map.Entry<String, Double>> MONTH_TOTAL = cols -> {
+        int month = cols.of("month");
+        int total = cols.of("total");
+        return rs -> Map.entry(rs.getString(month), rs.getDouble(total));
+    };
+
+    // Generate a Bill (and add it to its month's rollup in the same transaction)
     public boolean generateBill(Billing bill) {
         String sql = "INSERT INTO billing (customer_id, service_id, amount, billing_date, paid) "
                 + "VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, bill.getCustomerId());
-            stmt.setInt(2, bill.getServiceId());
-            stmt.setDouble(3, bill.getAmount());
-
-            if (bill.getBillingDate() != null) {
-                stmt.setTimestamp(4, new Timestamp(bill.getBillingDate().getTime()));
-            } else {
-                stmt.setNull(4, Types.TIMESTAMP);
+        return UnitOfWork.inTransaction(() -> {
+            try {
+                return JdbcTemplate.PRIMARY.update(sql,
+                        bill.getCustomerId(),
+                        bill.getServiceId(),
+                        bill.getAmount(),
+                        bill.getBillingDate(),
+                        bill.isPaid()) > 0
+                        && addToRollup(Collections.singletonList(rollupRow(bill, 1, bill.isPaid() ? 1 : 0)));
+
+            } catch (SQLException e) {
+                System.err.println("Error generating bill: " + e.getMessage());
+                return false;
             }
+        });
+    }
 
-            stmt.setBoolean(5, bill.isPaid());
-            return stmt.executeUpdate() > 0;
+    // Insert many bills in one JDBC batch (bulk import)
+    public boolean generateBills(List<Billing> bills) {
+        String sql = "INSERT INTO billing (customer_id, service_id, amount, billing_date, paid) "
+                + "VALUES (?, ?, ?, ?, ?)";
 
-        } catch (SQLException e) {
-            System.err.println("Error generating bill: " + e.getMessage());
-            return false;
+        List<Object[]> rows = new ArrayList<>(bills.size());
+        List<Object[]> rollup = new ArrayList<>(bills.size());
+        for (Billing bill : bills) {
+            rows.add(new Object[]{bill.getCustomerId(), bill.getServiceId(), bill.getAmount(),
+                bill.getBillingDate(), bill.isPaid()});
+            rollup.add(rollupRow(bill, 1, bill.isPaid() ? 1 : 0));
         }
+
+        return UnitOfWork.inTransaction(() -> {
+            try {
+                return JdbcTemplate.PRIMARY.batch(sql, rows) == bills.size()
+                        && addToRollup(rollup);
+            } catch (SQLException e) {
+                System.err.println("Error generating bills: " + e.getMessage());
+                return false;
+            }
+        });
     }
 
-    // Extract Billing Object
-    private Billing extractBilling(ResultSet rs) throws SQLException {
-        Billing bill = new Billing();
+    // Get All Bills
+    public List<Billing> getAllBills() {
+        try {
+            return JdbcTemplate.READ.query(ADMIN_SELECT + "ORDER BY b.id DESC", BILLING);
+        } catch (SQLException e) {
+            System.err.println("Error fetching all bills: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
 
-        bill.setId(rs.getInt("id"));
-        bill.setCustomerId(rs.getInt("customer_id"));
-        bill.setServiceId(rs.getInt("service_id"));
-        bill.setAmount(rs.getDouble("amount"));
+    // Stream every bill to callback without holding the full list in memory
+    public void forEachBill(JdbcTemplate.RowCallback<Billing> callback) throws SQLException {
+        JdbcTemplate.READ.stream(ADMIN_SELECT + "ORDER BY b.id DESC", BILLING, callback);
+    }
 
-        Timestamp ts = rs.getTimestamp("billing_date");
-        if (ts != null) {
-            bill.setBillingDate(new java.util.Date(ts.getTime()));
+    /**
+     * Ledger export: every bill matching the filters to callback, archived
+     * bills (billing_history, all paid) first and then billing, each in id
+     * order. Reads through a server-side cursor, fetchSize rows at a time,
+     * so memory use does not depend on the number of rows.
+     *
+     * from / to bound billing_date as [from, to); null leaves that side
+     * open. paid null exports both states.
+     */
+    public void exportLedger(java.util.Date from, java.util.Date to, Boolean paid, boolean includeHistory,
+            int fetchSize, JdbcTemplate.RowCallback<Billing> callback) throws SQLException {
+
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (from != null) {
+            where.append(" AND b.billing_date >= ?");
+            params.add(from);
+        }
+        if (to != null) {
+            where.append(" AND b.billing_date < ?");
+            params.add(to);
         }
 
-        bill.setPaid(rs.getBoolean("paid"));
+        if (includeHistory && !Boolean.FALSE.equals(paid)) {
+            JdbcTemplate.READ.cursor(ADMIN_HISTORY_SELECT + where.substring(1) + " ORDER BY b.id",
+                    fetchSize, BILLING, callback, params.toArray());
+        }
 
-        try {
-            bill.setServiceName(rs.getString("service_name"));
-        } catch (Exception ignored) {
+        if (paid != null) {
+            where.append(" AND b.paid = ?");
+            params.add(paid);
         }
+        JdbcTemplate.READ.cursor(ADMIN_SELECT + where.substring(1) + " ORDER BY b.id",
+                fetchSize, BILLING, callback, params.toArray());
+    }
+
+    // Get Paid Bills
+    public List<Billing> getPaidBills() {
         try {
-            bill.setCustomerName(rs.getString("customer_name"));
-        } catch (Exception ignored) {
+            return JdbcTemplate.READ.query(ADMIN_SELECT + "WHERE b.paid = 1 ORDER BY b.billing_date DESC", BILLING);
+        } catch (SQLException e) {
+            System.err.println("Error fetching paid bills: " + e.getMessage());
+            return new ArrayList<>();
         }
+    }
+
+    // Get Unpaid Bills
+    public List<Billing> getUnpaidBills() {
         try {
-            bill.setCustomerEmail(rs.getString("customer_email"));
-        } catch (Exception ignored) {
+            return JdbcTemplate.READ.query(ADMIN_SELECT + "WHERE b.paid = 0 ORDER BY b.billing_date DESC", BILLING);
+        } catch (SQLException e) {
+            System.err.println("Error fetching unpaid bills: " + e.getMessage());
+            return new ArrayList<>();
         }
+    }
 
-        return bill;
+    // =============================================
+    // ADMIN LIST: ONE PAGE (keyset pagination)
+    // =============================================
+    // Sortable columns of the admin list; b.id is always the tie-breaker
+    private static final KeysetPage<Billing> PAGES = new KeysetPage<Billing>("b.id", Billing::getId)
+            .sortable("billingDate", "b.billing_date", Billing::getBillingDate)
+            // A NULL amount reads as 0 in Billing, so it sorts and seeks as 0 too (V9 index)
+            .sortable("amount", "COALESCE(b.amount, 0)", Billing::getAmount)
+            .sortable("customerName", "c.name", Billing::getCustomerName)
+            .sortable("serviceName", "s.name", Billing::getServiceName);
+
+    // Position of b in the admin list sorted by sortField, for the next page's seek
+    public static KeysetPage.Key pageKey(Billing b, String sortField) {
+        return PAGES.keyOf(b, sortField);
     }
 
-    // Get All Bills
-    public List<Billing> getAllBills() {
-        List<Billing> list = new ArrayList<>();
+    /**
+     * One page of the admin billing list, sorted by sortField (id when
+     * unknown or null) and filtered by filter. Seeks past after (last key
+     * of the previous page) when given, otherwise skips offset rows; see
+     * KeysetPage.
+     */
+    public List<Billing> getBillsPage(BillingFilter filter, String sortField, boolean ascending,
+            KeysetPage.Key after, int offset, int limit) {
 
-        String sql = "SELECT b.*, c.name AS customer_name, c.email AS customer_email, "
-                + "s.name AS service_name "
-                + "FROM billing b "
-                + "LEFT JOIN customers c ON b.customer_id = c.id "
-                + "LEFT JOIN services s ON b.service_id = s.id "
-                + "ORDER BY b.id DESC";
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(ADMIN_SELECT + "WHERE 1=1");
+        appendFilter(sql, params, filter);
+        PAGES.appendPage(sql, params, sortField, ascending, after, offset, limit);
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+        try {
+            return JdbcTemplate.READ.query(sql.toString(), BILLING, params.toArray());
+        } catch (SQLException e) {
+            System.err.println("Error fetching bills page: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
 
-            while (rs.next()) {
-                list.add(extractBilling(rs));
-            }
+    // Rows matching filter, for the paginator
+    public int countBills(BillingFilter filter) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM billing b "
+                + "LEFT JOIN customers c ON b.customer_id = c.id WHERE 1=1");
+        appendFilter(sql, params, filter);
 
+        try {
+            return JdbcTemplate.READ.queryInt(sql.toString(), params.toArray());
         } catch (SQLException e) {
-            System.err.println("Error fetching all bills: " + e.getMessage());
+            System.err.println("Error counting bills: " + e.getMessage());
+            return 0;
         }
-        return list;
     }
 
-    // Get Paid Bills
-    public List<Billing> getPaidBills() {
-        List<Billing> list = new ArrayList<>();
+    // One bill with customer and service names, from the primary (just written)
+    public Billing getBillById(int billId) {
+        try {
+            return JdbcTemplate.PRIMARY.queryOne(ADMIN_SELECT + "WHERE b.id = ?", BILLING, billId);
+        } catch (SQLException e) {
+            System.err.println("Error fetching bill: " + e.getMessage());
+            return null;
+        }
+    }
 
-        String sql = "SELECT b.*, c.name AS customer_name, c.email AS customer_email, "
-                + "s.name AS service_name "
-                + "FROM billing b "
-                + "LEFT JOIN customers c ON b.customer_id = c.id "
-                + "LEFT JOIN services s ON b.service_id = s.id "
-                + "WHERE b.paid = 1 "
-                + "ORDER BY b.billing_date DESC";
+    // Paid state, service, customer name prefix and billing date range
+    private static void appendFilter(StringBuilder sql, List<Object> params, BillingFilter f) {
+        if (f == null) {
+            return;
+        }
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+        if (f.getPaid() != null) {
+            sql.append(" AND b.paid = ?");
+            params.add(f.getPaid());
+        }
 
-            while (rs.next()) {
-                list.add(extractBilling(rs));
-            }
+        if (f.getServiceId() > 0) {
+            sql.append(" AND b.service_id = ?");
+            params.add(f.getServiceId());
+        }
 
-        } catch (SQLException e) {
-            System.err.println("Error fetching paid bills: " + e.getMessage());
+        if (f.getCustomerName() != null && !f.getCustomerName().isBlank()) {
+            sql.append(" AND c.name LIKE ?");
+            params.add(f.getCustomerName().trim().replaceAll("([\\\\%_])", "\\\\$1") + "%");
+        }
+
+        if (f.getBilledFrom() != null) {
+            sql.append(" AND b.billing_date >= ?");
+            params.add(f.getBilledFrom());
+        }
+        if (f.getBilledTo() != null) {
+            sql.append(" AND b.billing_date < ?");
+            params.add(f.getBilledTo());
         }
-        return list;
     }
 
-    // Get Unpaid Bills
-    public List<Billing> getUnpaidBills() {
-        List<Billing> list = new ArrayList<>();
+    // Mark Bill Paid / Unpaid
+    public boolean markBillAsPaid(int billId) {
+        return setPaid(billId, true);
+    }
 
-        String sql = "SELECT b.*, c.name AS customer_name, c.email AS customer_email, "
-                + "s.name AS service_name "
-                + "FROM billing b "
-                + "LEFT JOIN customers c ON b.customer_id = c.id "
-                + "LEFT JOIN services s ON b.service_id = s.id "
-                + "WHERE b.paid = 0 "
-                + "ORDER BY b.billing_date DESC";
+    public boolean markBillAsUnpaid(int billId) {
+        return setPaid(billId, false);
+    }
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+    /**
+     * Locks the bill, flips paid and moves its amount between the paid and
+     * unpaid figures of its month's rollup. Returns true if the bill exists
+     * (already in that state counts as success).
+     */
+    private boolean setPaid(int billId, boolean paid) {
+        return UnitOfWork.inTransaction(() -> {
+            try {
+                Billing bill = JdbcTemplate.PRIMARY.queryOne(
+                        "SELECT id, customer_id, service_id, amount, billing_date, paid "
+                        + "FROM billing WHERE id = ? FOR UPDATE", BILLING, billId);
+
+                if (bill == null) {
+                    return false;
+                }
+                if (bill.isPaid() == paid) {
+                    return true;
+                }
+
+                return JdbcTemplate.PRIMARY.update("UPDATE billing SET paid = ? WHERE id = ?", paid, billId) > 0
+                        && addToRollup(Collections.singletonList(rollupRow(bill, 0, paid ? 1 : -1)));
 
-            while (rs.next()) {
-                list.add(extractBilling(rs));
+            } catch (SQLException e) {
+                System.err.println("Error marking bill " + (paid ? "paid" : "unpaid") + ": " + e.getMessage());
+                return false;
             }
+        });
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Error fetching unpaid bills: " + e.getMessage());
+    // =============================================
+    // BULK SETTLE / REVERSE (statement reconciliation)
+    // =============================================
+    /**
+     * Marks many bills paid (settle) or unpaid (reverse). ids are applied
+     * chunkSize at a time, each chunk in its own transaction: one SELECT
+     * ... FOR UPDATE of the chunk, one UPDATE ... WHERE id IN (...) of the
+     * bills that change and one rollup batch. A failed chunk rolls back
+     * alone and its ids are reported FAILED. The dashboard figures are
+     * refreshed once per committed chunk.
+     *
+     * Returns the outcome of every distinct id, in input order.
+     */
+    public Map<Integer, Outcome> settleBills(Collection<Integer> ids, boolean paid, int chunkSize) {
+        Map<Integer, Outcome> outcomes = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            if (id != null) {
+                outcomes.putIfAbsent(id, Outcome.NOT_FOUND);
+            }
         }
-        return list;
-    }
 
-    // Mark Bill Paid / Unpaid
-    public boolean markBillAsPaid(int billId) {
-        String sql = "UPDATE billing SET paid = 1 WHERE id = ?";
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+        List<Integer> distinct = new ArrayList<>(outcomes.keySet());
+        int size = Math.max(1, chunkSize);
 
-            stmt.setInt(1, billId);
-            return stmt.executeUpdate() > 0;
+        for (int from = 0; from < distinct.size(); from += size) {
+            List<Integer> chunk = distinct.subList(from, Math.min(from + size, distinct.size()));
+            Map<Integer, Outcome> result = new HashMap<>();
 
-        } catch (SQLException e) {
-            System.err.println("Error marking bill paid: " + e.getMessage());
-            return false;
+            if (UnitOfWork.inTransaction(() -> settleChunk(chunk, paid, result))) {
+                outcomes.putAll(result);
+            } else {
+                for (Integer id : chunk) {
+                    outcomes.put(id, Outcome.FAILED);
+                }
+            }
         }
+        return outcomes;
     }
 
-    public boolean markBillAsUnpaid(int billId) {
-        String sql = "UPDATE billing SET paid = 0 WHERE id = ?";
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+    // One chunk of settleBills; ids missing from result stay NOT_FOUND
+    private boolean settleChunk(List<Integer> ids, boolean paid, Map<Integer, Outcome> result) {
+        try {
+            // Locked in id order, like any other bulk writer, to avoid deadlocks
+            List<Object> lockParams = new ArrayList<>();
+            List<Billing> bills = JdbcTemplate.PRIMARY.query(
+                    "SELECT id, customer_id, service_id, amount, billing_date, paid FROM billing "
+                    + "WHERE id IN (" + JdbcTemplate.in(ids, lockParams) + ") ORDER BY id FOR UPDATE",
+                    BILLING, lockParams.toArray());
+
+            List<Integer> changed = new ArrayList<>(bills.size());
+            List<Object[]> rollup = new ArrayList<>(bills.size());
+
+            for (Billing bill : bills) {
+                if (bill.isPaid() == paid) {
+                    result.put(bill.getId(), Outcome.UNCHANGED);
+                } else {
+                    changed.add(bill.getId());
+                    rollup.add(rollupRow(bill, 0, paid ? 1 : -1));
+                    result.put(bill.getId(), Outcome.UPDATED);
+                }
+            }
+
+            if (changed.isEmpty()) {
+                return true;
+            }
+
+            List<Object> params = new ArrayList<>();
+            params.add(paid);
+            String in = JdbcTemplate.in(changed, params);
 
-            stmt.setInt(1, billId);
-            return stmt.executeUpdate() > 0;
+            boolean ok = JdbcTemplate.PRIMARY.update("UPDATE billing SET paid = ? WHERE id IN (" + in + ")",
+                    params.toArray()) == changed.size()
+                    && addToRollup(rollup);
+
+            if (ok) {
+                UnitOfWork.afterCompletion(DashboardStatsDAO::invalidate);
+            }
+            return ok;
 
         } catch (SQLException e) {
-            System.err.println("Error marking bill unpaid: " + e.getMessage());
+            System.err.println("Error settling bills: " + e.getMessage());
             return false;
         }
     }
 
     // Count Paid / Unpaid
     public int countPaidBills() {
-        String sql = "SELECT COUNT(*) FROM billing WHERE paid = 1";
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
-
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-
+        try {
+            // Lifetime figure: archived bills are all paid
+            return JdbcTemplate.READ.queryInt("SELECT (SELECT COUNT(*) FROM billing WHERE paid = 1) "
+                    + "+ (SELECT COUNT(*) FROM billing_history)");
         } catch (SQLException e) {
             e.printStackTrace();
+            return 0;
         }
-
-        return 0;
     }
 
     public int countUnpaidBills() {
-        String sql = "SELECT COUNT(*) FROM billing WHERE paid = 0";
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
-
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-
+        try {
+            return JdbcTemplate.READ.queryInt("SELECT COUNT(*) FROM billing WHERE paid = 0");
         } catch (SQLException e) {
             e.printStackTrace();
+            return 0;
         }
-
-        return 0;
     }
 
     // Count Paid/Unpaid by Customer
     public int countPaidBillsByCustomer(int customerId) {
-        String sql = "SELECT COUNT(*) FROM billing WHERE customer_id = ? AND paid = 1";
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, customerId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-
+        try {
+            return JdbcTemplate.PRIMARY.queryInt(
+                    "SELECT (SELECT COUNT(*) FROM billing WHERE customer_id = ? AND paid = 1) "
+                    + "+ (SELECT COUNT(*) FROM billing_history WHERE customer_id = ?)", customerId, customerId);
         } catch (SQLException e) {
             e.printStackTrace();
+            return 0;
         }
-
-        return 0;
     }
 
     public int countUnpaidBillsByCustomer(int customerId) {
-        String sql = "SELECT COUNT(*) FROM billing WHERE customer_id = ? AND paid = 0";
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, customerId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-
+        try {
+            return JdbcTemplate.PRIMARY.queryInt(
+                    "SELECT COUNT(*) FROM billing WHERE customer_id = ? AND paid = 0", customerId);
         } catch (SQLException e) {
             e.printStackTrace();
+            return 0;
         }
-
-        return 0;
     }
     // ===============================
 // Monthly Totals (Customer-Specific)
 // ===============================
 
     public Map<String, Double> getMonthlyTotalsByCustomer(int customerId) {
-        Map<String, Double> totals = new LinkedHashMap<>();
-
-        String sql = "SELECT DATE_FORMAT(billing_date, '%Y-%m') AS month, SUM(amount) AS total "
-                + "FROM billing "
-                + "WHERE customer_id = ? "
-                + "GROUP BY DATE_FORMAT(billing_date, '%Y-%m') "
-                + "ORDER BY month ASC";
-
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, customerId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                totals.put(rs.getString("month"), rs.getDouble("total"));
-            }
+        // From the rollup (archived bills included): one index range, a row per month and service
+        String sql = "SELECT DATE_FORMAT(r.month, '%Y-%m') AS month, SUM(r.total_amount) AS total "
+                + "FROM billing_monthly_rollup r WHERE r.customer_id = ? "
+                + "GROUP BY r.month ORDER BY r.month ASC";
 
+        Map<String, Double> totals = new LinkedHashMap<>();
+        try {
+            JdbcTemplate.READ.stream(sql, MONTH_TOTAL, e -> totals.put(e.getKey(), e.getValue()), customerId);
         } catch (SQLException e) {
             System.err.println("Error fetching monthly totals: " + e.getMessage());
         }
-
         return totals;
     }
 
     public Map<String, Double> getMonthlyTotals() {
-        Map<String, Double> totals = new LinkedHashMap<>();
-
-        String sql = "SELECT DATE_FORMAT(billing_date, '%Y-%m') AS month, SUM(amount) AS total "
-                + "FROM billing "
-                + "GROUP BY DATE_FORMAT(billing_date, '%Y-%m') "
-                + "ORDER BY month ASC";
-
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                totals.put(rs.getString("month"), rs.getDouble("total"));
-            }
+        // Index-only scan of the rollup, already in month order
+        String sql = "SELECT DATE_FORMAT(r.month, '%Y-%m') AS month, SUM(r.total_amount) AS total "
+                + "FROM billing_monthly_rollup r GROUP BY r.month ORDER BY r.month ASC";
 
+        Map<String, Double> totals = new LinkedHashMap<>();
+        try {
+            JdbcTemplate.READ.stream(sql, MONTH_TOTAL, e -> totals.put(e.getKey(), e.getValue()));
         } catch (SQLException e) {
             System.err.println("Error fetching monthly totals: " + e.getMessage());
         }
-
         return totals;
     }
 
-// Get PAID bills for a specific customer
+// Get PAID bills for a specific customer (hot table only)
     public List<Billing> getPaidBillsByCustomer(int customerId) {
-        List<Billing> list = new ArrayList<>();
-
-        String sql = "SELECT b.*, s.name AS service_name "
-                + "FROM billing b "
-                + "LEFT JOIN services s ON b.service_id = s.id "
-                + "WHERE b.customer_id = ? AND b.paid = 1 "
-                + "ORDER BY b.billing_date DESC";
-
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, customerId);
-            ResultSet rs = stmt.executeQuery();
+        return getPaidBillsByCustomer(customerId, false);
+    }
 
-            while (rs.next()) {
-                list.add(extractBilling(rs));
+    // includeHistory: also archived bills (billing_history)
+    public List<Billing> getPaidBillsByCustomer(int customerId, boolean includeHistory) {
+        if (includeHistory) {
+            try {
+                return JdbcTemplate.PRIMARY.query(CUSTOMER_SELECT_WITH_HISTORY
+                        + "WHERE b.paid = 1 ORDER BY b.billing_date DESC", BILLING, customerId, customerId);
+            } catch (SQLException e) {
+                System.err.println("Error fetching PAID bills with history: " + e.getMessage());
+                return new ArrayList<>();
             }
+        }
 
+        try {
+            return JdbcTemplate.PRIMARY.query(CUSTOMER_SELECT
+                    + "WHERE b.customer_id = ? AND b.paid = 1 ORDER BY b.billing_date DESC", BILLING, customerId);
         } catch (SQLException e) {
             System.err.println("Error fetching PAID bills by customer: " + e.getMessage());
+            return new ArrayList<>();
         }
-
-        return list;
     }
 
 // Get UNPAID bills for a specific customer
     public List<Billing> getUnpaidBillsByCustomer(int customerId) {
-        List<Billing> list = new ArrayList<>();
+        try {
+            return JdbcTemplate.PRIMARY.query(CUSTOMER_SELECT
+                    + "WHERE b.customer_id = ? AND b.paid = 0 ORDER BY b.billing_date DESC", BILLING, customerId);
+        } catch (SQLException e) {
+            System.err.println("Error fetching customer unpaid bills: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
 
-        String sql = "SELECT b.*, s.name AS service_name "
-                + "FROM billing b "
-                + "LEFT JOIN services s ON b.service_id = s.id "
-                + "WHERE b.customer_id = ? AND b.paid = 0 "
-                + "ORDER BY b.billing_date DESC";
+    // Get Bills for 1 Customer (hot table only)
+    public List<Billing> getBillsByCustomer(int customerId) {
+        return getBillsByCustomer(customerId, false);
+    }
+
+    // includeHistory: also archived bills (billing_history)
+    public List<Billing> getBillsByCustomer(int customerId, boolean includeHistory) {
+        if (includeHistory) {
+            try {
+                return JdbcTemplate.PRIMARY.query(CUSTOMER_SELECT_WITH_HISTORY
+                        + "ORDER BY b.id DESC", BILLING, customerId, customerId);
+            } catch (SQLException e) {
+                System.err.println("Error fetching bills with history: " + e.getMessage());
+                return new ArrayList<>();
+            }
+        }
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try {
+            return JdbcTemplate.PRIMARY.query(CUSTOMER_SELECT
+                    + "WHERE b.customer_id = ? ORDER BY b.id DESC", BILLING, customerId);
+        } catch (SQLException e) {
+            System.err.println("Error fetching bills by customer: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
 
-            stmt.setInt(1, customerId);
-            ResultSet rs = stmt.executeQuery();
+    // =============================================
+    // ARCHIVAL (jobs.ArchivalJob)
+    // =============================================
+    /**
+     * Moves up to limit paid bills dated before cutoff to billing_history.
+     * Must run inside a UnitOfWork: the rows are locked (skipping rows
+     * another node is archiving), copied and deleted in one transaction.
+     * Returns the number moved; -1 on error.
+     */
+    public int archivePaid(java.util.Date cutoff, int limit) {
+        try {
+            List<Integer> ids = JdbcTemplate.PRIMARY.query(
+                    "SELECT id FROM billing WHERE paid = 1 AND billing_date < ? "
+                    + "ORDER BY billing_date LIMIT ? FOR UPDATE SKIP LOCKED",
+                    cols -> rs -> rs.getInt(1), cutoff, limit);
 
-            while (rs.next()) {
-                list.add(extractBilling(rs));
+            if (ids.isEmpty()) {
+                return 0;
             }
 
+            List<Object> inParams = new ArrayList<>();
+            String in = " WHERE id IN (" + JdbcTemplate.in(ids, inParams) + ")";
+            Object[] params = inParams.toArray();
+
+            JdbcTemplate.PRIMARY.update("INSERT INTO billing_history (" + ARCHIVE_COLUMNS + ") "
+                    + "SELECT " + ARCHIVE_COLUMNS + " FROM billing" + in, params);
+            return JdbcTemplate.PRIMARY.update("DELETE FROM billing" + in, params);
+
         } catch (SQLException e) {
-            System.err.println("Error fetching customer unpaid bills: " + e.getMessage());
+            System.err.println("Error archiving bills: " + e.getMessage());
+            return -1;
         }
+    }
 
-        return list;
+    // =============================================
+    // MONTHLY ROLLUP (billing_monthly_rollup)
+    // =============================================
+    /**
+     * Deltas adding count bills and paid paid bills (each may be negative)
+     * of this bill's amount to its month: billing_date, customer_id,
+     * service_id, bill_count, total_amount, paid_count, paid_amount. Null
+     * for a bill without a billing_date, which has no month.
+     */
+    private static Object[] rollupRow(Billing bill, int count, int paid) {
+        if (bill.getBillingDate() == null) {
+            return null;
+        }
+        double amount = bill.getAmount();
+        return new Object[]{bill.getBillingDate(), bill.getCustomerId(), bill.getServiceId(),
+            count, count * amount, paid, paid * amount};
     }
 
-    // Get Bills for 1 Customer
-    public List<Billing> getBillsByCustomer(int customerId) {
-        List<Billing> list = new ArrayList<>();
+    /**
+     * Applies rollupRow deltas; must run in the same transaction as the bill
+     * writes. The deltas are summed per rollup row and sent as one batch in
+     * key order (month, customer_id, service_id), so every writer (settle
+     * chunks, generated bills) locks rollup rows in the same order and two
+     * of them cannot deadlock. Months are taken in the zone the driver sends
+     * dates in, the same month DATE_FORMAT(billing_date) gives the rebuild.
+     */
+    private static boolean addToRollup(List<Object[]> rows) throws SQLException {
+        TreeMap<RollupKey, double[]> sums = new TreeMap<>();
+        ZoneId zone = null;
+
+        for (Object[] row : rows) {
+            if (row == null) {
+                continue;
+            }
+            if (zone == null) {
+                zone = JdbcTemplate.PRIMARY.parameterZone();
+            }
+            LocalDate month = Instant.ofEpochMilli(((java.util.Date) row[0]).getTime())
+                    .atZone(zone).toLocalDate().withDayOfMonth(1);
 
-        String sql = "SELECT b.*, s.name AS service_name "
-                + "FROM billing b "
-                + "LEFT JOIN services s ON b.service_id = s.id "
-                + "WHERE b.customer_id = ? "
-                + "ORDER BY b.id DESC";
+            double[] sum = sums.computeIfAbsent(new RollupKey(month, (Integer) row[1], (Integer) row[2]),
+                    k -> new double[4]);
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += ((Number) row[3 + i]).doubleValue();
+            }
+        }
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+        List<Object[]> batch = new ArrayList<>(sums.size());
+        for (Map.Entry<RollupKey, double[]> e : sums.entrySet()) {
+            RollupKey key = e.getKey();
+            double[] sum = e.getValue();
+            batch.add(new Object[]{key.month.toString(), key.customerId, key.serviceId,
+                (int) sum[0], sum[1], (int) sum[2], sum[3]});
+        }
 
-            stmt.setInt(1, customerId);
+        if (!batch.isEmpty()) {
+            JdbcTemplate.PRIMARY.batch(ROLLUP_UPSERT, batch);
+        }
+        return true;
+    }
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    list.add(extractBilling(rs));
-                }
+    // Primary key of billing_monthly_rollup, ordered like the index
+    private static final class RollupKey implements Comparable<RollupKey> {
+
+        final LocalDate month;
+        final int customerId;
+        final int serviceId;
+
+        RollupKey(LocalDate month, int customerId, int serviceId) {
+            this.month = month;
+            this.customerId = customerId;
+            this.serviceId = serviceId;
+        }
+
+        @Override
+        public int compareTo(RollupKey o) {
+            int c = month.compareTo(o.month);
+            if (c == 0) {
+                c = Integer.compare(customerId, o.customerId);
             }
+            return c != 0 ? c : Integer.compare(serviceId, o.serviceId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RollupKey k && compareTo(k) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(month, customerId, serviceId);
+        }
+    }
 
+    /**
+     * First days ('yyyy-MM-01') of the current month and the months - 1
+     * before it, by the database clock; months &lt;= 0 means every month
+     * that has bills or rollup rows.
+     */
+    public List<String> getRollupMonths(int months) {
+        try {
+            if (months > 0) {
+                return JdbcTemplate.PRIMARY.query(
+                        "WITH RECURSIVE m (n) AS (SELECT 0 UNION ALL SELECT n + 1 FROM m WHERE n + 1 < ?) "
+                        + "SELECT DATE_FORMAT(NOW() - INTERVAL n MONTH, '%Y-%m-01') FROM m ORDER BY n",
+                        cols -> rs -> rs.getString(1), months);
+            }
+            return JdbcTemplate.PRIMARY.query(
+                    "SELECT DATE_FORMAT(billing_date, '%Y-%m-01') AS m FROM billing WHERE billing_date IS NOT NULL "
+                    + "UNION SELECT DATE_FORMAT(billing_date, '%Y-%m-01') FROM billing_history WHERE billing_date IS NOT NULL "
+                    + "UNION SELECT DATE_FORMAT(month, '%Y-%m-01') FROM billing_monthly_rollup "
+                    + "ORDER BY m",
+                    cols -> rs -> rs.getString(1));
         } catch (SQLException e) {
-            System.err.println("Error fetching bills by customer: " + e.getMessage());
+            System.err.println("Error listing rollup months: " + e.getMessage());
+            return new ArrayList<>();
         }
+    }
+
+    /**
+     * Recomputes one month ('yyyy-MM-01') of the rollup from the bills.
+     * Must run inside a UnitOfWork. The month's bills are share-locked
+     * first (the same order bill writes take: billing, then rollup), so
+     * a concurrent write to that month waits for the rebuild instead of
+     * being lost or deadlocking. Returns 1 if the month had drifted, 0 if
+     * not, -1 on error.
+     */
+    public int rebuildRollupMonth(String month) {
+        try {
+            JdbcTemplate.PRIMARY.queryInt("SELECT COUNT(*) FROM billing "
+                    + "WHERE billing_date >= ? AND billing_date < ? + INTERVAL 1 MONTH FOR SHARE", month, month);
+            JdbcTemplate.PRIMARY.queryInt("SELECT COUNT(*) FROM billing_history "
+                    + "WHERE billing_date >= ? AND billing_date < ? + INTERVAL 1 MONTH FOR SHARE", month, month);
 
-        return list;
+            String before = JdbcTemplate.PRIMARY.queryOne(ROLLUP_CHECKSUM, cols -> rs -> rs.getString(1), month);
+
+            JdbcTemplate.PRIMARY.update("DELETE FROM billing_monthly_rollup WHERE month = ?", month);
+            JdbcTemplate.PRIMARY.update(ROLLUP_REBUILD, month, month, month, month, month);
+
+            String after = JdbcTemplate.PRIMARY.queryOne(ROLLUP_CHECKSUM, cols -> rs -> rs.getString(1), month);
+            return Objects.equals(before, after) ? 0 : 1;
+
+        } catch (SQLException e) {
+            System.err.println("Error rebuilding rollup for " + month + ": " + e.getMessage());
+            return -1;
+        }
     }
 }
@@ -4,11 +4,16 @@ import jakarta.enterprise.context.ApplicationScoped;
 import model.Customer;
 import model.User;
 import util.DBConnectionManager;
+import util.JdbcTemplate;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @ApplicationScoped
 public class CustomerDAO {
@@ -85,6 +90,7 @@ public class CustomerDAO {
             }
 
             conn.commit();
+            DBConnectionManager.recordWrite();
             return "SUCCESS";
 
         } catch (SQLException e) {
@@ -123,6 +129,55 @@ public class CustomerDAO {
         return null;
     }
 
+    /**
+     * Resolves customer keys (numeric id or email) in one query. Returns
+     * key -> customer id for the keys that exist; emails match case-insensitively.
+     */
+    public Map<String, Integer> resolveCustomerIds(Collection<String> keys) {
+        Map<String, Integer> found = new HashMap<>();
+
+        List<Object> ids = new ArrayList<>();
+        List<Object> emails = new ArrayList<>();
+        for (String key : keys) {
+            if (!key.isEmpty() && key.length() < 10 && key.chars().allMatch(Character::isDigit)) {
+                ids.add(Integer.valueOf(key));
+            } else {
+                emails.add(key.toLowerCase(Locale.ROOT));
+            }
+        }
+        if (ids.isEmpty() && emails.isEmpty()) {
+            return found;
+        }
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT id, email FROM customers WHERE ");
+        sql.append(ids.isEmpty() ? "1=0" : "id IN (" + JdbcTemplate.in(ids, params) + ")");
+        if (!emails.isEmpty()) {
+            // Case-insensitive collation: still an index lookup
+            sql.append(" OR email IN (").append(JdbcTemplate.in(emails, params)).append(")");
+        }
+
+        try {
+            for (Map.Entry<Integer, String> row : JdbcTemplate.PRIMARY.query(sql.toString(),
+                    cols -> rs -> Map.entry(rs.getInt(1), String.valueOf(rs.getString(2))), params.toArray())) {
+                found.put(String.valueOf(row.getKey()), row.getKey());
+                found.put(row.getValue().toLowerCase(Locale.ROOT), row.getKey());
+            }
+        } catch (SQLException e) {
+            System.err.println("Error resolving customers: " + e.getMessage());
+        }
+
+        // Report under the caller's keys
+        Map<String, Integer> result = new HashMap<>();
+        for (String key : keys) {
+            Integer id = found.get(key.toLowerCase(Locale.ROOT));
+            if (id != null) {
+                result.put(key, id);
+            }
+        }
+        return result;
+    }
+
     // Legacy insert method (kept for compatibility)
     public boolean insertCustomer(Customer c) {
 
@@ -136,7 +191,11 @@ public class CustomerDAO {
             stmt.setDate(4, new java.sql.Date(c.getRegistrationDate().getTime()));
             stmt.setInt(5, c.getUserId());
 
-            return stmt.executeUpdate() > 0;
+            boolean ok = stmt.executeUpdate() > 0;
+            if (ok) {
+                DBConnectionManager.recordWrite();
+            }
+            return ok;
 
         } catch (SQLException e) {
             System.err.println("Error inserting customer: " + e.getMessage());
@@ -149,7 +208,7 @@ public class CustomerDAO {
         List<Customer> list = new ArrayList<>();
         String sql = "SELECT * FROM customers";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+        try (Connection conn = DBConnectionManager.getReadConnection(); PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
 
             while (rs.next()) {
 
@@ -0,0 +1,111 @@
+package dao;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import model.DashboardStats;
+import util.DBConnectionManager;
+import util.JdbcTemplate;
+import util.JdbcTemplate.RowMapperFactory;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Headline figures for the admin report page, all from one aggregate
+ * statement: an index-only pass over billing plus counted subqueries for
+ * the archive, active subscriptions and customers.
+ *
+ * The result is shared by every admin session for cache.dashboard.ttlMs.
+ * Only one request recomputes an expired snapshot; the others keep
+ * getting the previous one meanwhile instead of piling onto the database.
+ */
+@ApplicationScoped
+public class DashboardStatsDAO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long TTL_MS = DBConnectionManager.getIntProperty("cache.dashboard.ttlMs", 5000);
+
+    private static final ReentrantLock REFRESH = new ReentrantLock();
+    private static volatile DashboardStats cached;
+    private static volatile long expiresAt;
+
+    // Lifetime paid count includes archived bills, which are all paid
+    private static final String STATS_SQL = "SELECT "
+            + "COALESCE(SUM(b.paid = 1), 0) + (SELECT COUNT(*) FROM billing_history) AS paid_bills, "
+            + "COALESCE(SUM(b.paid = 0), 0) AS unpaid_bills, "
+            + "COALESCE(SUM(IF(b.paid = 0, b.amount, 0)), 0) AS outstanding, "
+            + "COALESCE(SUM(IF(b.paid = 1 AND b.billing_date >= ?, b.amount, 0)), 0) AS revenue_month, "
+            + "(SELECT COUNT(*) FROM subscriptions s WHERE s.status = 'ACTIVE' "
+            + " AND (s.auto_renew = 1 OR s.expiry_date > ?)) AS active_subscriptions, "
+            + "(SELECT COUNT(*) FROM customers) AS customers "
+            + "FROM billing b";
+
+    private static final RowMapperFactory<DashboardStats> STATS = cols -> {
+        int paid = cols.of("paid_bills");
+        int unpaid = cols.of("unpaid_bills");
+        int outstanding = cols.of("outstanding");
+        int revenue = cols.of("revenue_month");
+        int active = cols.of("active_subscriptions");
+        int customers = cols.of("customers");
+
+        return rs -> new DashboardStats(rs.getInt(paid), rs.getInt(unpaid), rs.getDouble(outstanding),
+                rs.getDouble(revenue), rs.getInt(active), rs.getInt(customers), new Date());
+    };
+
+    /**
+     * Current figures, at most cache.dashboard.ttlMs old. Returns the last
+     * good snapshot (or all zeros) when they cannot be read.
+     */
+    public DashboardStats getStats() {
+        DashboardStats s = cached;
+        if (s != null && System.currentTimeMillis() < expiresAt) {
+            return s;
+        }
+
+        // Someone else is already refreshing: serve the stale copy
+        if (s != null && !REFRESH.tryLock()) {
+            return s;
+        }
+        if (s == null) {
+            REFRESH.lock();
+        }
+
+        try {
+            if (cached != null && System.currentTimeMillis() < expiresAt) {
+                return cached;
+            }
+
+            DashboardStats fresh = load();
+            if (fresh != null) {
+                cached = fresh;
+                expiresAt = System.currentTimeMillis() + TTL_MS;
+                return fresh;
+            }
+            return cached != null ? cached : DashboardStats.empty();
+
+        } finally {
+            REFRESH.unlock();
+        }
+    }
+
+    // Next getStats() recomputes (callers keep the old copy until then)
+    public static void invalidate() {
+        expiresAt = 0;
+    }
+
+    private DashboardStats load() {
+        Date monthStart = Date.from(LocalDate.now().withDayOfMonth(1)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant());
+
+        try {
+            return JdbcTemplate.READ.queryOne(STATS_SQL, STATS, monthStart, new Date());
+        } catch (SQLException e) {
+            System.err.println("ERROR getStats: " + e.getMessage());
+        }
+        return null;
+    }
+}
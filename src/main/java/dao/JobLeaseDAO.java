@@ -0,0 +1,158 @@
+package dao;
+
+import model.JobRun;
+import util.JdbcTemplate;
+import util.JdbcTemplate.RowMapperFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Leases and run history for cluster-wide singleton jobs (job_leases,
+ * job_runs). All lease times use the database clock, so nodes with
+ * skewed clocks still agree on when a lease has run out.
+ */
+public class JobLeaseDAO {
+
+    private static final int DETAIL_MAX = 500;
+
+    private static final RowMapperFactory<JobRun> RUN = cols -> {
+        int id = cols.of("id");
+        int jobName = cols.of("job_name");
+        int owner = cols.of("owner");
+        int startedAt = cols.of("started_at");
+        int finishedAt = cols.of("finished_at");
+        int status = cols.of("status");
+        int detail = cols.of("detail");
+
+        return rs -> {
+            JobRun r = new JobRun();
+            r.setId(rs.getLong(id));
+            r.setJobName(rs.getString(jobName));
+            r.setOwner(rs.getString(owner));
+            r.setStartedAt(JdbcTemplate.getDate(rs, startedAt));
+            r.setFinishedAt(JdbcTemplate.getDate(rs, finishedAt));
+            r.setStatus(rs.getString(status));
+            r.setDetail(rs.getString(detail));
+            return r;
+        };
+    };
+
+    // =============================================
+    // LEASES
+    // =============================================
+    /**
+     * Takes or extends the lease on job for ttlMs. Succeeds when the row is
+     * new, already ours, or its lease has run out; otherwise leaves it alone.
+     *
+     * One upsert under the row lock, so two nodes racing for a free lease
+     * cannot both win. MySQL applies the assignments left to right: once
+     * owner is set, the later IF(owner = VALUES(owner), ...) tells whether
+     * this node holds it.
+     */
+    public boolean tryAcquire(String job, String owner, long ttlMs) {
+        String sql = "INSERT INTO job_leases (job_name, owner, lease_until, acquired_at, heartbeat_at) "
+                + "VALUES (?, ?, NOW(3) + INTERVAL ? MICROSECOND, NOW(3), NOW(3)) "
+                + "ON DUPLICATE KEY UPDATE "
+                + "acquired_at = IF(owner <> VALUES(owner) AND lease_until < NOW(3), NOW(3), acquired_at), "
+                + "owner = IF(owner = VALUES(owner) OR lease_until < NOW(3), VALUES(owner), owner), "
+                + "heartbeat_at = IF(owner = VALUES(owner), NOW(3), heartbeat_at), "
+                + "lease_until = IF(owner = VALUES(owner), VALUES(lease_until), lease_until)";
+
+        try {
+            JdbcTemplate.PRIMARY.update(sql, job, owner, ttlMs * 1000);
+            return JdbcTemplate.PRIMARY.queryInt(
+                    "SELECT COUNT(*) FROM job_leases WHERE job_name = ? AND owner = ?", job, owner) > 0;
+        } catch (SQLException e) {
+            System.err.println("ERROR tryAcquire: " + e.getMessage());
+        }
+        return false;
+    }
+
+    // Gives the lease up now, so another node can take over on its next run
+    public boolean release(String job, String owner) {
+        String sql = "UPDATE job_leases SET lease_until = NOW(3) WHERE job_name = ? AND owner = ?";
+
+        try {
+            return JdbcTemplate.PRIMARY.update(sql, job, owner) > 0;
+        } catch (SQLException e) {
+            System.err.println("ERROR release: " + e.getMessage());
+        }
+        return false;
+    }
+
+    // =============================================
+    // RUN HISTORY
+    // =============================================
+    // Records a RUNNING row; returns its id, or 0 if it could not be written
+    public long startRun(String job, String owner) {
+        String sql = "INSERT INTO job_runs (job_name, owner, started_at) VALUES (?, ?, NOW(3))";
+
+        try {
+            return JdbcTemplate.PRIMARY.insert(sql, job, owner);
+        } catch (SQLException e) {
+            System.err.println("ERROR startRun: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    public boolean finishRun(long runId, boolean ok, String detail) {
+        String sql = "UPDATE job_runs SET finished_at = NOW(3), status = ?, detail = ? WHERE id = ?";
+
+        try {
+            return JdbcTemplate.PRIMARY.update(sql, ok ? "OK" : "FAILED", truncate(detail), runId) > 0;
+        } catch (SQLException e) {
+            System.err.println("ERROR finishRun: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Closes RUNNING rows left by other owners of job, i.e. runs whose node
+     * died or lost the lease mid-run. Called by a node that has just taken
+     * the lease over.
+     */
+    public int abandonRuns(String job, String owner) {
+        String sql = "UPDATE job_runs SET finished_at = NOW(3), status = 'FAILED', "
+                + "detail = 'Abandoned: lease expired' "
+                + "WHERE job_name = ? AND status = 'RUNNING' AND owner <> ?";
+
+        try {
+            return JdbcTemplate.PRIMARY.update(sql, job, owner);
+        } catch (SQLException e) {
+            System.err.println("ERROR abandonRuns: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    // Newest first, across all jobs and nodes
+    public List<JobRun> getRecentRuns(int limit) {
+        String sql = "SELECT id, job_name, owner, started_at, finished_at, status, detail "
+                + "FROM job_runs ORDER BY id DESC LIMIT ?";
+
+        try {
+            return JdbcTemplate.READ.query(sql, RUN, limit);
+        } catch (SQLException e) {
+            System.err.println("ERROR getRecentRuns: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    // Deletes up to limit runs started before cutoff; returns the number deleted
+    public int pruneRuns(Date cutoff, int limit) {
+        String sql = "DELETE FROM job_runs WHERE started_at < ? LIMIT ?";
+
+        try {
+            return JdbcTemplate.PRIMARY.update(sql, cutoff, limit);
+        } catch (SQLException e) {
+            System.err.println("ERROR pruneRuns: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    private static String truncate(String detail) {
+        return detail != null && detail.length() > DETAIL_MAX ? detail.substring(0, DETAIL_MAX) : detail;
+    }
+}
@@ -0,0 +1,119 @@
+package dao;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keyset ("seek") pagination of an admin list of T, shared by the
+ * subscription and billing lists.
+ *
+ * Rows are ordered by one sortable column, then by id in the same
+ * direction. The key of the last row of a page (its sort value and id)
+ * lets the next page seek straight past it, so a deep page costs the same
+ * as the first. Without a key (first page, or a jump to a page whose
+ * predecessor was never read) offset rows are skipped instead.
+ *
+ * Sort columns may be NULL (nullable dates, LEFT JOINed names). MySQL
+ * sorts NULLs first ascending and last descending, and the seek follows
+ * that order, so rows with a NULL sort value appear on exactly one page.
+ */
+public final class KeysetPage<T> {
+
+    private final String idColumn;
+    private final ToIntFunction<T> id;
+    private final Map<String, String> columns = new HashMap<>();
+    private final Map<String, Function<T, Object>> values = new HashMap<>();
+
+    /**
+     * Position of a row in the list: its sort value and id. Kept by the
+     * lazy data models between requests, hence Serializable.
+     */
+    public static final class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object value;
+        private final int id;
+
+        private Key(Object value, int id) {
+            this.value = value;
+            this.id = id;
+        }
+    }
+
+    KeysetPage(String idColumn, ToIntFunction<T> id) {
+        this.idColumn = idColumn;
+        this.id = id;
+    }
+
+    /**
+     * Lets the list be sorted by sortField (the data table's field name) on
+     * the SQL expression column; value reads the same value from a row.
+     */
+    KeysetPage<T> sortable(String sortField, String column, Function<T, Object> value) {
+        columns.put(sortField, column);
+        values.put(sortField, value);
+        return this;
+    }
+
+    // Key of row for the list sorted by sortField (id only when unknown or null)
+    Key keyOf(T row, String sortField) {
+        Function<T, Object> value = sortField == null ? null : values.get(sortField);
+        return new Key(value == null ? null : value.apply(row), id.applyAsInt(row));
+    }
+
+    /**
+     * Appends the seek condition (" AND ...", so sql must end inside its
+     * WHERE clause), ORDER BY, LIMIT and, when not seeking, OFFSET.
+     */
+    void appendPage(StringBuilder sql, List<Object> params, String sortField, boolean ascending,
+            Key after, int offset, int limit) {
+
+        String column = sortField == null ? null : columns.get(sortField);
+        String dir = ascending ? " ASC" : " DESC";
+        String cmp = ascending ? " > ?" : " < ?";
+
+        if (after != null) {
+            appendSeek(sql, params, column, ascending, cmp, after);
+        }
+
+        sql.append(" ORDER BY ");
+        if (column != null) {
+            sql.append(column).append(dir).append(", ");
+        }
+        sql.append(idColumn).append(dir).append(" LIMIT ?");
+        params.add(limit);
+
+        if (after == null && offset > 0) {
+            sql.append(" OFFSET ?");
+            params.add(offset);
+        }
+    }
+
+    private void appendSeek(StringBuilder sql, List<Object> params, String column, boolean ascending,
+            String cmp, Key after) {
+        if (column == null) {
+            sql.append(" AND ").append(idColumn).append(cmp);
+            params.add(after.id);
+
+        } else if (after.value == null) {
+            // Within the NULLs; ascending, every non-NULL row is still ahead
+            sql.append(" AND ((").append(column).append(" IS NULL AND ").append(idColumn).append(cmp).append(')');
+            sql.append(ascending ? " OR " + column + " IS NOT NULL)" : ")");
+            params.add(after.id);
+
+        } else {
+            sql.append(" AND (").append(column).append(cmp)
+                    .append(" OR (").append(column).append(" = ? AND ").append(idColumn).append(cmp).append(')');
+            // Descending, the NULLs come after every value
+            sql.append(ascending ? ")" : " OR " + column + " IS NULL)");
+            params.add(after.value);
+            params.add(after.value);
+            params.add(after.id);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package dao;
+
+import model.ExpiryNotification;
+import util.JdbcTemplate;
+import util.JdbcTemplate.RowMapperFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class NotificationDAO {
+
+    private static final RowMapperFactory<ExpiryNotification> NOTIFICATION = cols -> {
+        int subscriptionId = cols.of("subscription_id");
+        int customerId = cols.of("customer_id");
+        int customerName = cols.of("customer_name");
+        int customerEmail = cols.of("customer_email");
+        int customerPhone = cols.of("customer_phone");
+        int serviceName = cols.of("service_name");
+        int expiryDate = cols.of("expiry_date");
+
+        return rs -> {
+            ExpiryNotification n = new ExpiryNotification();
+            n.setSubscriptionId(rs.getInt(subscriptionId));
+            n.setCustomerId(rs.getInt(customerId));
+            n.setCustomerName(rs.getString(customerName));
+            n.setCustomerEmail(rs.getString(customerEmail));
+            n.setCustomerPhone(rs.getString(customerPhone));
+            n.setServiceName(rs.getString(serviceName));
+            n.setExpiryDate(JdbcTemplate.getDate(rs, expiryDate));
+            return n;
+        };
+    };
+
+    // =============================================
+    // DUE FOR A PRE-EXPIRY NOTICE
+    // =============================================
+    /**
+     * ACTIVE subscriptions expiring in (from, to] that have not been
+     * notified for this offset and expiry yet. One range read on
+     * (status, expiry_date); the anti-join probes the primary key.
+     */
+    public List<ExpiryNotification> findDue(int offsetMinutes, Date from, Date to, int limit) {
+        String sql = "SELECT s.id AS subscription_id, s.customer_id, s.expiry_date, "
+                + "c.name AS customer_name, c.email AS customer_email, c.phone AS customer_phone, "
+                + "sv.name AS service_name "
+                + "FROM subscriptions s "
+                + "JOIN customers c ON s.customer_id = c.id "
+                + "JOIN services sv ON s.service_id = sv.id "
+                + "LEFT JOIN subscription_notifications n ON n.subscription_id = s.id "
+                + "AND n.offset_minutes = ? AND n.expiry_date = s.expiry_date "
+                + "WHERE s.status = 'ACTIVE' AND s.auto_renew = 0 AND s.expiry_date > ? AND s.expiry_date <= ? "
+                + "AND n.subscription_id IS NULL "
+                + "ORDER BY s.expiry_date LIMIT ?";
+
+        try {
+            List<ExpiryNotification> list = JdbcTemplate.PRIMARY.query(sql, NOTIFICATION, offsetMinutes, from, to, limit);
+            for (ExpiryNotification n : list) {
+                n.setOffsetMinutes(offsetMinutes);
+            }
+            return list;
+        } catch (SQLException e) {
+            System.err.println("ERROR findDue: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+
+    // =============================================
+    // RECORD SENT (one batch)
+    // =============================================
+    public boolean recordSent(List<ExpiryNotification> sent, String channel) {
+        String sql = "INSERT IGNORE INTO subscription_notifications "
+                + "(subscription_id, offset_minutes, expiry_date, channel) VALUES (?, ?, ?, ?)";
+
+        List<Object[]> rows = new ArrayList<>(sent.size());
+        for (ExpiryNotification n : sent) {
+            rows.add(new Object[]{n.getSubscriptionId(), n.getOffsetMinutes(), n.getExpiryDate(), channel});
+        }
+
+        try {
+            JdbcTemplate.PRIMARY.batch(sql, rows);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("ERROR recordSent: " + e.getMessage());
+        }
+        return false;
+    }
+}
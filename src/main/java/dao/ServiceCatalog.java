@@ -0,0 +1,127 @@
+package dao;
+
+import model.Service;
+import util.DBConnectionManager;
+import util.UnitOfWork;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The active service catalog as an array indexed by service id plus a
+ * bitset of those ids, so "not subscribed" is one andNot() against a
+ * customer's subscribed-ids bitset (SubscriptionCache.serviceIds).
+ *
+ * Dropped by every ServiceDAO write; cache.services.ttlMs bounds how long
+ * a change made on another node can go unseen.
+ *
+ * A catalog read that raced with a write is not published: load() only
+ * installs it when nothing was invalidated since the reader took
+ * generation(), the same rule as SubscriptionCache.put().
+ */
+final class ServiceCatalog {
+
+    private static final long TTL_MS = DBConnectionManager.getIntProperty("cache.services.ttlMs", 60000);
+
+    private static final Object LOCK = new Object();
+
+    private static volatile ServiceCatalog current;
+    private static long generation;
+
+    private final Service[] byId;
+    private final BitSet active;
+    private final Map<String, Integer> idsByName = new HashMap<>();
+    private final long expiresAt;
+
+    private ServiceCatalog(List<Service> services) {
+        int maxId = 0;
+        for (Service s : services) {
+            maxId = Math.max(maxId, s.getId());
+        }
+
+        this.byId = new Service[maxId + 1];
+        this.active = new BitSet(maxId + 1);
+        for (Service s : services) {
+            byId[s.getId()] = s;
+            active.set(s.getId());
+            if (s.getName() != null) {
+                idsByName.putIfAbsent(s.getName().trim().toLowerCase(Locale.ROOT), s.getId());
+            }
+        }
+        this.expiresAt = System.currentTimeMillis() + TTL_MS;
+    }
+
+    // Current catalog, or null when it must be (re)loaded
+    static ServiceCatalog get() {
+        ServiceCatalog c = current;
+        return c != null && c.expiresAt > System.currentTimeMillis() ? c : null;
+    }
+
+    static long generation() {
+        synchronized (LOCK) {
+            return generation;
+        }
+    }
+
+    // Catalog built from the rows read; kept only if no write invalidated it meanwhile
+    static ServiceCatalog load(List<Service> activeServices, long readGeneration) {
+        ServiceCatalog c = new ServiceCatalog(activeServices);
+        synchronized (LOCK) {
+            if (readGeneration == generation) {
+                current = c;
+            }
+        }
+        return c;
+    }
+
+    // Dropped now and again once the surrounding UnitOfWork ends, as the write is visible only then
+    static void invalidate() {
+        drop();
+        UnitOfWork.afterCompletion(ServiceCatalog::drop);
+    }
+
+    private static void drop() {
+        synchronized (LOCK) {
+            generation++;
+            current = null;
+        }
+    }
+
+    // Copy of the active bitset, for the caller to andNot() into
+    BitSet activeIds() {
+        return (BitSet) active.clone();
+    }
+
+    // Active service by id or (case-insensitive) name, or null
+    Service find(String idOrName) {
+        String key = idOrName.trim();
+        Integer id = isId(key)
+                ? Integer.valueOf(key)
+                : idsByName.get(key.toLowerCase(Locale.ROOT));
+        return id != null && id >= 0 && id < byId.length && byId[id] != null ? get(id) : null;
+    }
+
+    // 1-9 ASCII digits: fits an int, so parsing cannot throw (names are the common case in imports)
+    private static boolean isId(String key) {
+        if (key.isEmpty() || key.length() > 9) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Copy of the service, so callers cannot change the shared catalog
+    Service get(int id) {
+        Service s = byId[id];
+        return new Service(s.getId(), s.getName(), s.getDescription(), s.getCharge(),
+                s.getDurationValue(), s.getDurationUnit(), s.isActive());
+    }
+}
@@ -2,15 +2,42 @@ package dao;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import model.Service;
-import util.DBConnectionManager;
+import util.JdbcTemplate;
+import util.JdbcTemplate.RowMapperFactory;
 
-import java.sql.*;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 @ApplicationScoped
 public class ServiceDAO {
 
+    private static final RowMapperFactory<Service> SERVICE = cols -> {
+        int id = cols.of("id");
+        int name = cols.of("name");
+        int description = cols.of("description");
+        int charge = cols.of("charge");
+        int durationValue = cols.of("duration_value");
+        int durationUnit = cols.of("duration_unit");
+        int active = cols.of("active");
+
+        return rs -> {
+            Service s = new Service();
+            s.setId(rs.getInt(id));
+            s.setName(rs.getString(name));
+            s.setDescription(rs.getString(description));
+            s.setCharge(rs.getDouble(charge));
+
+            int durationVal = rs.getInt(durationValue);
+            s.setDurationValue(rs.wasNull() ? null : durationVal);
+
+            s.setDurationUnit(rs.getString(durationUnit));
+            s.setActive(rs.getInt(active) == 1);
+            return s;
+        };
+    };
+
     // ======================================================
     // 1️⃣ Add a new service (ADMIN)
     // ======================================================
@@ -18,27 +45,16 @@ public class ServiceDAO {
         String sql = "INSERT INTO services (name, description, charge, duration_value, duration_unit, active) "
                 + "VALUES (?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, s.getName());
-            stmt.setString(2, s.getDescription());
-            stmt.setDouble(3, s.getCharge());
-
-            if (s.getDurationValue() != null) {
-                stmt.setInt(4, s.getDurationValue());
-            } else {
-                stmt.setNull(4, Types.INTEGER);
-            }
-
-            if (s.getDurationUnit() != null) {
-                stmt.setString(5, s.getDurationUnit());
-            } else {
-                stmt.setNull(5, Types.VARCHAR);
-            }
-
-            stmt.setInt(6, s.isActive() ? 1 : 0);
-
-            return stmt.executeUpdate() > 0;
+        try {
+            boolean changed = JdbcTemplate.PRIMARY.update(sql,
+                    s.getName(),
+                    s.getDescription(),
+                    s.getCharge(),
+                    s.getDurationValue(),
+                    s.getDurationUnit(),
+                    s.isActive()) > 0;
+            ServiceCatalog.invalidate();
+            return changed;
 
         } catch (SQLException e) {
             System.err.println("Error adding service: " + e.getMessage());
@@ -50,38 +66,28 @@ public class ServiceDAO {
     // 2️⃣ CUSTOMER — List ONLY active services
     // ======================================================
     public List<Service> getAllActiveServices() {
-        List<Service> list = new ArrayList<>();
         String sql = "SELECT * FROM services WHERE active = 1 ORDER BY id DESC";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                list.add(extractService(rs));
-            }
-
+        try {
+            return JdbcTemplate.PRIMARY.query(sql, SERVICE);
         } catch (SQLException e) {
             System.err.println("Error listing active services: " + e.getMessage());
         }
-        return list;
+        return new ArrayList<>();
     }
 
     // ======================================================
     // 3️⃣ ADMIN — List ALL services
     // ======================================================
     public List<Service> getAllServices() {
-        List<Service> list = new ArrayList<>();
         String sql = "SELECT * FROM services ORDER BY id DESC";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                list.add(extractService(rs));
-            }
-
+        try {
+            return JdbcTemplate.PRIMARY.query(sql, SERVICE);
         } catch (SQLException e) {
             System.err.println("Error listing all services: " + e.getMessage());
         }
-        return list;
+        return new ArrayList<>();
     }
 
     // ======================================================
@@ -89,50 +95,66 @@ public class ServiceDAO {
     // ======================================================
     public Service getServiceById(int id) {
         String sql = "SELECT * FROM services WHERE id = ?";
-        Service service = null;
-
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                service = extractService(rs);
-            }
 
+        try {
+            return JdbcTemplate.PRIMARY.queryOne(sql, SERVICE, id);
         } catch (SQLException e) {
             System.err.println("Error fetching service by ID: " + e.getMessage());
         }
 
-        return service;
+        return null;
     }
 
     // ======================================================
     // 5️⃣ CUSTOMER — Services NOT subscribed
     // ======================================================
+    // Active catalog AND NOT the customer's subscribed ids, both held as
+    // bitsets; indexed NOT EXISTS while the customer is not cached
     public List<Service> getServicesNotSubscribed(int customerId) {
-        List<Service> list = new ArrayList<>();
+        BitSet subscribed = SubscriptionCache.serviceIds(customerId);
+        if (subscribed == null) {
+            return queryServicesNotSubscribed(customerId);
+        }
 
-        String sql
-                = "SELECT * FROM services "
-                + "WHERE active = 1 AND id NOT IN ("
-                + "   SELECT service_id FROM subscriptions WHERE customer_id = ?"
-                + ") ORDER BY id";
+        ServiceCatalog catalog = activeCatalog();
+        BitSet available = catalog.activeIds();
+        available.andNot(subscribed);
+
+        List<Service> list = new ArrayList<>(available.cardinality());
+        for (int id = available.nextSetBit(0); id >= 0; id = available.nextSetBit(id + 1)) {
+            list.add(catalog.get(id));
+        }
+        return list;
+    }
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+    // Active service by id or name from the cached catalog, or null (bulk import)
+    public Service findActiveService(String idOrName) {
+        return activeCatalog().find(idOrName);
+    }
 
-            stmt.setInt(1, customerId);
-            ResultSet rs = stmt.executeQuery();
+    private ServiceCatalog activeCatalog() {
+        ServiceCatalog catalog = ServiceCatalog.get();
+        if (catalog != null) {
+            return catalog;
+        }
+        long generation = ServiceCatalog.generation();
+        return ServiceCatalog.load(getAllActiveServices(), generation);
+    }
 
-            while (rs.next()) {
-                list.add(extractService(rs));
-            }
+    private List<Service> queryServicesNotSubscribed(int customerId) {
+        String sql
+                = "SELECT * FROM services sv "
+                + "WHERE sv.active = 1 AND NOT EXISTS ("
+                + "   SELECT 1 FROM subscriptions s WHERE s.customer_id = ? AND s.service_id = sv.id"
+                + ") ORDER BY sv.id";
 
+        try {
+            return JdbcTemplate.PRIMARY.query(sql, SERVICE, customerId);
         } catch (SQLException e) {
             System.err.println("Error fetching available services: " + e.getMessage());
         }
 
-        return list;
+        return new ArrayList<>();
     }
 
     // ======================================================
@@ -142,11 +164,10 @@ public class ServiceDAO {
         String sql
                 = "UPDATE services SET active = CASE WHEN active = 1 THEN 0 ELSE 1 END WHERE id = ?";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, id);
-            return ps.executeUpdate() > 0;
-
+        try {
+            boolean changed = JdbcTemplate.PRIMARY.update(sql, id) > 0;
+            ServiceCatalog.invalidate();
+            return changed;
         } catch (SQLException e) {
             System.err.println("ToggleStatus ERROR: " + e.getMessage());
         }
@@ -159,28 +180,17 @@ public class ServiceDAO {
     public boolean updateService(Service s) {
         String sql = "UPDATE services SET name=?, description=?, charge=?, duration_value=?, duration_unit=?, active=? WHERE id=?";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, s.getName());
-            stmt.setString(2, s.getDescription());
-            stmt.setDouble(3, s.getCharge());
-
-            if (s.getDurationValue() != null) {
-                stmt.setInt(4, s.getDurationValue());
-            } else {
-                stmt.setNull(4, Types.INTEGER);
-            }
-
-            if (s.getDurationUnit() != null) {
-                stmt.setString(5, s.getDurationUnit());
-            } else {
-                stmt.setNull(5, Types.VARCHAR);
-            }
-
-            stmt.setInt(6, s.isActive() ? 1 : 0);
-            stmt.setInt(7, s.getId());
-
-            return stmt.executeUpdate() > 0;
+        try {
+            boolean changed = JdbcTemplate.PRIMARY.update(sql,
+                    s.getName(),
+                    s.getDescription(),
+                    s.getCharge(),
+                    s.getDurationValue(),
+                    s.getDurationUnit(),
+                    s.isActive(),
+                    s.getId()) > 0;
+            ServiceCatalog.invalidate();
+            return changed;
 
         } catch (SQLException e) {
             System.err.println("Error updating service: " + e.getMessage());
@@ -194,11 +204,10 @@ public class ServiceDAO {
     public boolean deleteService(int id) {
         String sql = "DELETE FROM services WHERE id = ?";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
-
+        try {
+            boolean changed = JdbcTemplate.PRIMARY.update(sql, id) > 0;
+            ServiceCatalog.invalidate();
+            return changed;
         } catch (SQLException e) {
             System.err.println("Error deleting service: " + e.getMessage());
         }
@@ -208,38 +217,12 @@ public class ServiceDAO {
     public boolean serviceHasBillingRecords(int serviceId) {
         String sql = "SELECT COUNT(*) FROM billing WHERE service_id = ?";
 
-        try (Connection con = DBConnectionManager.getConnection(); PreparedStatement ps = con.prepareStatement(sql)) {
-
-            ps.setInt(1, serviceId);
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
+        try {
+            return JdbcTemplate.PRIMARY.queryInt(sql, serviceId) > 0;
         } catch (Exception e) {
             e.printStackTrace();
         }
 
         return false;
     }
-
-    // ======================================================
-    // Helper: Extract service from ResultSet
-    // ======================================================
-    private Service extractService(ResultSet rs) throws SQLException {
-        Service s = new Service();
-
-        s.setId(rs.getInt("id"));
-        s.setName(rs.getString("name"));
-        s.setDescription(rs.getString("description"));
-        s.setCharge(rs.getDouble("charge"));
-
-        int durationVal = rs.getInt("duration_value");
-        s.setDurationValue(rs.wasNull() ? null : durationVal);
-
-        s.setDurationUnit(rs.getString("duration_unit"));
-        s.setActive(rs.getInt("active") == 1);
-
-        return s;
-    }
 }
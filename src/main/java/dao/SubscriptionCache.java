@@ -0,0 +1,209 @@
+package dao;
+
+import model.Subscription;
+import util.DBConnectionManager;
+import util.UnitOfWork;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU of each customer's subscriptions (as returned by
+ * SubscriptionDAO.getSubscriptionsByCustomerId), shared by the customer
+ * pages and the service catalog.
+ *
+ * An entry is dropped by every SubscriptionDAO write that touches one of
+ * its rows (again after the surrounding UnitOfWork ends), and expires on
+ * its own at the earliest expiry_date of its ACTIVE rows, so the derived
+ * status never goes stale. cache.subscriptions.ttlMs bounds how long a
+ * write made by another node can go unseen.
+ *
+ * A read that raced with an invalidation is not cached: put() is ignored
+ * when anything was invalidated since the reader took generation().
+ */
+final class SubscriptionCache {
+
+    private static final int MAX_CUSTOMERS
+            = DBConnectionManager.getIntProperty("cache.subscriptions.maxCustomers", 10000);
+    private static final long TTL_MS
+            = DBConnectionManager.getIntProperty("cache.subscriptions.ttlMs", 300000);
+
+    private static final class Entry {
+
+        final List<Subscription> subscriptions;
+        final BitSet serviceIds;
+        final long expiresAt;
+
+        Entry(List<Subscription> subscriptions, long expiresAt) {
+            this.subscriptions = subscriptions;
+            this.serviceIds = new BitSet();
+            this.expiresAt = expiresAt;
+
+            for (Subscription s : subscriptions) {
+                serviceIds.set(s.getServiceId());
+            }
+        }
+    }
+
+    // customer id -> entry, in access order; guarded by itself
+    private static final LinkedHashMap<Integer, Entry> ENTRIES = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+            if (size() > MAX_CUSTOMERS) {
+                forget(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // subscription id -> customer id, for the rows held in ENTRIES
+    private static final Map<Integer, Integer> OWNERS = new HashMap<>();
+
+    private static long generation;
+
+    private SubscriptionCache() {
+    }
+
+    // Copies of the cached rows, or null on a miss
+    static List<Subscription> get(int customerId) {
+        synchronized (ENTRIES) {
+            Entry e = live(customerId);
+            return e != null ? copy(e.subscriptions) : null;
+        }
+    }
+
+    // Ids of every service the customer ever subscribed to (any status), or null on a miss
+    static BitSet serviceIds(int customerId) {
+        synchronized (ENTRIES) {
+            Entry e = live(customerId);
+            return e != null ? (BitSet) e.serviceIds.clone() : null;
+        }
+    }
+
+    static long generation() {
+        synchronized (ENTRIES) {
+            return generation;
+        }
+    }
+
+    static void put(int customerId, List<Subscription> subscriptions, long readGeneration) {
+        if (MAX_CUSTOMERS <= 0) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long expiresAt = now + TTL_MS;
+        for (Subscription s : subscriptions) {
+            if ("ACTIVE".equals(s.getStatus()) && s.getExpiryDate() != null) {
+                expiresAt = Math.min(expiresAt, s.getExpiryDate().getTime());
+            }
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+
+        synchronized (ENTRIES) {
+            if (readGeneration != generation) {
+                return;
+            }
+            Entry old = ENTRIES.put(customerId, new Entry(copy(subscriptions), expiresAt));
+            if (old != null) {
+                forget(old);
+            }
+            for (Subscription s : subscriptions) {
+                OWNERS.put(s.getId(), customerId);
+            }
+        }
+    }
+
+    // =============================================
+    // INVALIDATION (SubscriptionDAO writes)
+    // =============================================
+    static void invalidateCustomer(int customerId) {
+        evictCustomer(customerId);
+        UnitOfWork.afterCompletion(() -> evictCustomer(customerId));
+    }
+
+    static void invalidateSubscription(int subscriptionId) {
+        evictSubscription(subscriptionId);
+        UnitOfWork.afterCompletion(() -> evictSubscription(subscriptionId));
+    }
+
+    // Drops entries whose earliest expiry has passed (after a bulk expiry sweep)
+    static void evictExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (ENTRIES) {
+            ENTRIES.values().removeIf(e -> {
+                if (e.expiresAt <= now) {
+                    forget(e);
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    // =============================================
+    // HELPERS
+    // =============================================
+    private static void evictCustomer(int customerId) {
+        synchronized (ENTRIES) {
+            generation++;
+            Entry e = ENTRIES.remove(customerId);
+            if (e != null) {
+                forget(e);
+            }
+        }
+    }
+
+    private static void evictSubscription(int subscriptionId) {
+        synchronized (ENTRIES) {
+            generation++;
+            Integer customerId = OWNERS.get(subscriptionId);
+            if (customerId != null) {
+                Entry e = ENTRIES.remove(customerId);
+                if (e != null) {
+                    forget(e);
+                }
+            }
+        }
+    }
+
+    // Unexpired entry for customerId, or null; caller holds the ENTRIES lock
+    private static Entry live(int customerId) {
+        Entry e = ENTRIES.get(customerId);
+        if (e != null && e.expiresAt <= System.currentTimeMillis()) {
+            ENTRIES.remove(customerId);
+            forget(e);
+            return null;
+        }
+        return e;
+    }
+
+    // Caller holds the ENTRIES lock
+    private static void forget(Entry e) {
+        for (Subscription s : e.subscriptions) {
+            OWNERS.remove(s.getId());
+        }
+    }
+
+    private static List<Subscription> copy(List<Subscription> list) {
+        List<Subscription> out = new ArrayList<>(list.size());
+        for (Subscription s : list) {
+            Subscription c = new Subscription(s.getCustomerId(), s.getServiceId(),
+                    s.getPurchaseDate(), s.getExpiryDate(), s.getStatus());
+            c.setId(s.getId());
+            c.setCustomerName(s.getCustomerName());
+            c.setServiceName(s.getServiceName());
+            c.setMonthlyPrice(s.getMonthlyPrice());
+            c.setAutoRenew(s.isAutoRenew());
+            out.add(c);
+        }
+        return out;
+    }
+}
@@ -1,54 +1,162 @@
 package dao;
 
 import model.Subscription;
-import util.DBConnectionManager;
+import model.SubscriptionFilter;
+import util.JdbcTemplate;
+import util.UnitOfWork;
+import util.JdbcTemplate.RowMapperFactory;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class SubscriptionDAO {
 
-    // =============================================
-    //  EXPIRE HELPER
-    // =============================================
-    private void markSubscriptionExpired(int id) {
-        String sql = "UPDATE subscriptions SET status = 'EXPIRED' WHERE id = ?";
+    /**
+     * Told after a subscription is written with a new expiry, so in-memory
+     * schedulers (jobs.SubscriptionExpiryWheel) need not poll the table.
+     * The write may still be rolled back by a UnitOfWork; listeners must
+     * re-check the row before acting on it.
+     */
+    @FunctionalInterface
+    public interface ExpiryListener {
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+        void expiryScheduled(int subscriptionId, Date expiryDate);
+    }
 
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
+    private static final List<ExpiryListener> EXPIRY_LISTENERS = new CopyOnWriteArrayList<>();
 
-        } catch (SQLException e) {
-            System.err.println("ERROR markSubscriptionExpired: " + e.getMessage());
-        }
+    public static void addExpiryListener(ExpiryListener listener) {
+        EXPIRY_LISTENERS.add(listener);
+    }
+
+    public static void removeExpiryListener(ExpiryListener listener) {
+        EXPIRY_LISTENERS.remove(listener);
     }
 
-    private boolean isExpired(Date expiryDate) {
-        if (expiryDate == null) {
-            return false;
+    private static void fireExpiryScheduled(int subscriptionId, Date expiryDate, String status) {
+        if (subscriptionId > 0 && expiryDate != null && "ACTIVE".equalsIgnoreCase(status)) {
+            for (ExpiryListener listener : EXPIRY_LISTENERS) {
+                listener.expiryScheduled(subscriptionId, expiryDate);
+            }
         }
-        Date now = new Date();
-        return expiryDate.before(now);
     }
 
+    /**
+     * Status as the customer should see it: ACTIVE rows already past their
+     * expiry read as EXPIRED even before the sweeper has updated them.
+     * Auto-renewing rows stay ACTIVE until the renewal engine extends or
+     * lapses them. Takes one parameter, the current time.
+     */
+    private static final String EFFECTIVE_STATUS
+            = "CASE WHEN s.status = 'ACTIVE' AND s.auto_renew = 0 AND s.expiry_date <= ? "
+            + "THEN 'EXPIRED' ELSE s.status END AS effective_status";
+
+    // Subscription row mapper: joined name/price columns are optional (0 = not selected)
+    private static final RowMapperFactory<Subscription> SUBSCRIPTION = cols -> {
+        int id = cols.of("id");
+        int customerId = cols.of("customer_id");
+        int serviceId = cols.of("service_id");
+        int purchaseDate = cols.of("purchase_date");
+        int expiryDate = cols.of("expiry_date");
+        int status = cols.of("effective_status") > 0 ? cols.of("effective_status") : cols.of("status");
+        int customerName = cols.of("customer_name");
+        int serviceName = cols.of("service_name");
+        int servicePrice = cols.of("service_price");
+        int autoRenew = cols.of("auto_renew");
+
+        return rs -> {
+            Subscription s = new Subscription();
+            s.setId(rs.getInt(id));
+            s.setCustomerId(rs.getInt(customerId));
+            s.setServiceId(rs.getInt(serviceId));
+            s.setCustomerName(JdbcTemplate.getString(rs, customerName));
+            s.setServiceName(JdbcTemplate.getString(rs, serviceName));
+            if (servicePrice > 0) {
+                s.setMonthlyPrice(rs.getDouble(servicePrice));
+            }
+            s.setPurchaseDate(JdbcTemplate.getDate(rs, purchaseDate));
+            s.setExpiryDate(JdbcTemplate.getDate(rs, expiryDate));
+            s.setStatus(rs.getString(status));
+            if (autoRenew > 0) {
+                s.setAutoRenew(rs.getBoolean(autoRenew));
+            }
+            return s;
+        };
+    };
+
     // =============================================
-    // GET CUSTOMER ID BY USER ID
+    //  EXPIRY SWEEP (jobs.SubscriptionExpirySweeper)
     // =============================================
-    public int getCustomerIdByUserId(int userId) {
-        String sql = "SELECT id FROM customers WHERE user_id = ?";
+    /**
+     * Expires the given subscriptions if they are still ACTIVE and due as of
+     * now (an id may have been renewed since it was scheduled). ids are
+     * sent as one IN list. Returns rows changed; -1 on error.
+     */
+    public int expireIfDue(List<Integer> ids, Date now) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+        List<Object> params = new ArrayList<>();
+        params.add(now);
+        String sql = "UPDATE subscriptions SET status = 'EXPIRED' "
+                + "WHERE status = 'ACTIVE' AND auto_renew = 0 AND expiry_date <= ? "
+                + "AND id IN (" + JdbcTemplate.in(ids, params) + ")";
+
+        try {
+            int n = JdbcTemplate.PRIMARY.update(sql, params.toArray());
+            if (n > 0) {
+                for (int id : ids) {
+                    SubscriptionCache.invalidateSubscription(id);
+                }
+            }
+            return n;
+        } catch (SQLException e) {
+            System.err.println("ERROR expireIfDue: " + e.getMessage());
+        }
+        return -1;
+    }
 
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
+    // (id, expiry_date) of every ACTIVE subscription that will not auto-renew, streamed
+    public void forEachActiveExpiry(ExpiryListener callback) throws SQLException {
+        JdbcTemplate.PRIMARY.stream("SELECT id, expiry_date FROM subscriptions WHERE status = 'ACTIVE' AND auto_renew = 0",
+                cols -> rs -> Map.entry(rs.getInt(1), (Date) rs.getTimestamp(2)),
+                e -> callback.expiryScheduled(e.getKey(), e.getValue()));
+    }
 
-            if (rs.next()) {
-                return rs.getInt("id");
+    /**
+     * Moves up to batchSize ACTIVE subscriptions whose expiry_date has
+     * passed to EXPIRED in one statement (range read on status, expiry_date).
+     * Returns the number of rows changed; -1 on error.
+     */
+    public int expireDue(Date now, int batchSize) {
+        String sql = "UPDATE subscriptions SET status = 'EXPIRED' "
+                + "WHERE status = 'ACTIVE' AND auto_renew = 0 AND expiry_date <= ? "
+                + "ORDER BY expiry_date LIMIT ?";
+
+        try {
+            int n = JdbcTemplate.PRIMARY.update(sql, now, batchSize);
+            if (n > 0) {
+                // Cached entries already expire at their earliest expiry_date
+                SubscriptionCache.evictExpired();
             }
+            return n;
+        } catch (SQLException e) {
+            System.err.println("ERROR expireDue: " + e.getMessage());
+        }
+        return -1;
+    }
 
+    // =============================================
+    // GET CUSTOMER ID BY USER ID
+    // =============================================
+    public int getCustomerIdByUserId(int userId) {
+        try {
+            return JdbcTemplate.PRIMARY.queryInt("SELECT id FROM customers WHERE user_id = ?", userId);
         } catch (SQLException e) {
             System.err.println("ERROR getCustomerIdByUserId: " + e.getMessage());
         }
@@ -57,116 +165,128 @@ public class SubscriptionDAO {
 
     // =============================================
     // GET ACTIVE SUBSCRIPTIONS FOR CUSTOMER
-    // (Auto-expire included)
+    // (Effective status derived in SQL)
     // =============================================
     public List<Subscription> getActiveSubscriptionsByCustomer(int customerId) {
-        List<Subscription> list = new ArrayList<>();
-
-        String sql = "SELECT s.*, c.name AS customerName, sv.name AS serviceName "
+        String sql = "SELECT s.*, " + EFFECTIVE_STATUS + ", c.name AS customer_name, sv.name AS service_name "
                 + "FROM subscriptions s "
                 + "JOIN customers c ON s.customer_id = c.id "
                 + "JOIN services sv ON s.service_id = sv.id "
                 + "WHERE s.customer_id = ? ORDER BY s.id DESC";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, customerId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Subscription sub = new Subscription();
-
-                sub.setId(rs.getInt("id"));
-                sub.setCustomerId(rs.getInt("customer_id"));
-                sub.setServiceId(rs.getInt("service_id"));
-                sub.setCustomerName(rs.getString("customerName"));
-                sub.setServiceName(rs.getString("serviceName"));
-
-                Timestamp pTs = rs.getTimestamp("purchase_date");
-                Timestamp eTs = rs.getTimestamp("expiry_date");
-
-                Date purchase = pTs != null ? new Date(pTs.getTime()) : null;
-                Date expiry = eTs != null ? new Date(eTs.getTime()) : null;
-
-                sub.setPurchaseDate(purchase);
-                sub.setExpiryDate(expiry);
-
-                String status = rs.getString("status");
-
-                // AUTO-EXPIRE LOGIC
-                if ("ACTIVE".equalsIgnoreCase(status) && isExpired(expiry)) {
-                    markSubscriptionExpired(sub.getId());
-                    status = "EXPIRED";
-                }
-
-                sub.setStatus(status);
-                list.add(sub);
-            }
-
+        try {
+            return JdbcTemplate.PRIMARY.query(sql, SUBSCRIPTION, new Date(), customerId);
         } catch (Exception e) {
             e.printStackTrace();
         }
 
-        return list;
+        return new ArrayList<>();
     }
 
     // =============================================
     // GET ALL SUBSCRIPTIONS FOR CUSTOMER
-    // (Auto-expire included)
+    // (Effective status derived in SQL; served from SubscriptionCache)
     // =============================================
     public List<Subscription> getSubscriptionsByCustomerId(int customerId) {
-        List<Subscription> list = new ArrayList<>();
+        List<Subscription> cached = SubscriptionCache.get(customerId);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Uncommitted rows seen inside a transaction must not be cached
+        boolean cacheable = !UnitOfWork.isActive();
+        long generation = SubscriptionCache.generation();
 
         String sql = "SELECT s.id, s.customer_id, s.service_id, "
-                + "s.purchase_date, s.expiry_date, s.status, "
+                + "s.purchase_date, s.expiry_date, s.auto_renew, " + EFFECTIVE_STATUS + ", "
                 + "c.name AS customer_name, srv.name AS service_name, srv.charge AS service_price "
                 + "FROM subscriptions s "
                 + "JOIN customers c ON s.customer_id = c.id "
                 + "JOIN services srv ON s.service_id = srv.id "
                 + "WHERE s.customer_id = ? ORDER BY s.id DESC";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, customerId);
-            ResultSet rs = stmt.executeQuery();
+        try {
+            List<Subscription> list = JdbcTemplate.PRIMARY.query(sql, SUBSCRIPTION, new Date(), customerId);
+            if (cacheable) {
+                SubscriptionCache.put(customerId, list, generation);
+            }
+            return list;
+        } catch (SQLException e) {
+            System.err.println("ERROR getSubscriptionsByCustomerId: " + e.getMessage());
+        }
 
-            while (rs.next()) {
-                Subscription s = new Subscription();
+        return new ArrayList<>();
+    }
 
-                s.setId(rs.getInt("id"));
-                s.setCustomerId(rs.getInt("customer_id"));
-                s.setServiceId(rs.getInt("service_id"));
+    /**
+     * includeHistory: also the customer's archived subscriptions
+     * (subscriptions_history), newest first. Not cached; the plain
+     * overload stays on the small hot table.
+     */
+    public List<Subscription> getSubscriptionsByCustomerId(int customerId, boolean includeHistory) {
+        if (!includeHistory) {
+            return getSubscriptionsByCustomerId(customerId);
+        }
 
-                s.setCustomerName(rs.getString("customer_name"));
-                s.setServiceName(rs.getString("service_name"));
-                s.setMonthlyPrice(rs.getDouble("service_price"));
+        String columns = "id, customer_id, service_id, purchase_date, expiry_date, status, auto_renew";
+        String sql = "SELECT s.id, s.customer_id, s.service_id, "
+                + "s.purchase_date, s.expiry_date, s.auto_renew, " + EFFECTIVE_STATUS + ", "
+                + "c.name AS customer_name, srv.name AS service_name, srv.charge AS service_price "
+                + "FROM (SELECT " + columns + " FROM subscriptions WHERE customer_id = ? "
+                + "      UNION ALL "
+                + "      SELECT " + columns + " FROM subscriptions_history WHERE customer_id = ?) s "
+                + "JOIN customers c ON s.customer_id = c.id "
+                + "JOIN services srv ON s.service_id = srv.id "
+                + "ORDER BY s.id DESC";
 
-                Timestamp purchase = rs.getTimestamp("purchase_date");
-                Timestamp expiry = rs.getTimestamp("expiry_date");
+        try {
+            return JdbcTemplate.PRIMARY.query(sql, SUBSCRIPTION, new Date(), customerId, customerId);
+        } catch (SQLException e) {
+            System.err.println("ERROR getSubscriptionsByCustomerId (history): " + e.getMessage());
+        }
 
-                Date purchaseDate = purchase != null ? new Date(purchase.getTime()) : null;
-                Date expiryDate = expiry != null ? new Date(expiry.getTime()) : null;
+        return new ArrayList<>();
+    }
 
-                s.setPurchaseDate(purchaseDate);
-                s.setExpiryDate(expiryDate);
+    // =============================================
+    // ARCHIVAL (jobs.ArchivalJob)
+    // =============================================
+    /**
+     * Moves up to limit EXPIRED subscriptions whose expiry_date is before
+     * cutoff to subscriptions_history. Must run inside a UnitOfWork: the
+     * rows are locked (skipping rows another node is archiving), copied
+     * and deleted in one transaction. Returns the number moved; -1 on error.
+     */
+    public int archiveExpired(Date cutoff, int limit) {
+        String columns = "id, customer_id, service_id, purchase_date, expiry_date, status, auto_renew";
+
+        try {
+            List<Integer> ids = JdbcTemplate.PRIMARY.query(
+                    "SELECT id FROM subscriptions WHERE status = 'EXPIRED' AND expiry_date < ? "
+                    + "ORDER BY expiry_date LIMIT ? FOR UPDATE SKIP LOCKED",
+                    cols -> rs -> rs.getInt(1), cutoff, limit);
+
+            if (ids.isEmpty()) {
+                return 0;
+            }
 
-                String status = rs.getString("status");
+            List<Object> inParams = new ArrayList<>();
+            String in = " WHERE id IN (" + JdbcTemplate.in(ids, inParams) + ")";
+            Object[] params = inParams.toArray();
 
-                // AUTO-EXPIRE
-                if ("ACTIVE".equalsIgnoreCase(status) && isExpired(expiryDate)) {
-                    markSubscriptionExpired(s.getId());
-                    status = "EXPIRED";
-                }
+            JdbcTemplate.PRIMARY.update("INSERT INTO subscriptions_history (" + columns + ") "
+                    + "SELECT " + columns + " FROM subscriptions" + in, params);
+            int moved = JdbcTemplate.PRIMARY.update("DELETE FROM subscriptions" + in, params);
 
-                s.setStatus(status);
-                list.add(s);
+            for (int id : ids) {
+                SubscriptionCache.invalidateSubscription(id);
             }
+            return moved;
 
         } catch (SQLException e) {
-            System.err.println("ERROR getSubscriptionsByCustomerId: " + e.getMessage());
+            System.err.println("ERROR archiveExpired: " + e.getMessage());
         }
-
-        return list;
+        return -1;
     }
 
     // =============================================
@@ -175,50 +295,155 @@ public class SubscriptionDAO {
     public boolean addSubscription(Subscription s) {
         String sql = "INSERT INTO subscriptions (customer_id, service_id, purchase_date, expiry_date, status) VALUES (?, ?, ?, ?, ?)";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try {
+            long id = JdbcTemplate.PRIMARY.insert(sql,
+                    s.getCustomerId(),
+                    s.getServiceId(),
+                    s.getPurchaseDate(),
+                    s.getExpiryDate(),
+                    s.getStatus());
+
+            if (id > 0) {
+                s.setId((int) id);
+                SubscriptionCache.invalidateCustomer(s.getCustomerId());
+                fireExpiryScheduled(s.getId(), s.getExpiryDate(), s.getStatus());
+                return true;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("ERROR addSubscription: " + e.getMessage());
+        }
+
+        return false;
+    }
+
+    // =============================================
+    // ADD SUBSCRIPTIONS (one JDBC batch, bulk import)
+    // =============================================
+    public boolean addSubscriptions(List<Subscription> subs) {
+        String sql = "INSERT INTO subscriptions (customer_id, service_id, purchase_date, expiry_date, status) VALUES (?, ?, ?, ?, ?)";
+
+        List<Object[]> rows = new ArrayList<>(subs.size());
+        for (Subscription s : subs) {
+            rows.add(new Object[]{s.getCustomerId(), s.getServiceId(), s.getPurchaseDate(), s.getExpiryDate(), s.getStatus()});
+        }
 
-            stmt.setInt(1, s.getCustomerId());
-            stmt.setInt(2, s.getServiceId());
-            stmt.setTimestamp(3, new Timestamp(s.getPurchaseDate().getTime()));
+        try {
+            long[] ids = JdbcTemplate.PRIMARY.batchInsert(sql, rows);
 
-            if (s.getExpiryDate() != null) {
-                stmt.setTimestamp(4, new Timestamp(s.getExpiryDate().getTime()));
-            } else {
-                stmt.setNull(4, Types.TIMESTAMP);
+            for (int i = 0; i < ids.length; i++) {
+                Subscription s = subs.get(i);
+                s.setId((int) ids[i]);
+                SubscriptionCache.invalidateCustomer(s.getCustomerId());
+                fireExpiryScheduled(s.getId(), s.getExpiryDate(), s.getStatus());
             }
-
-            stmt.setString(5, s.getStatus());
-            return stmt.executeUpdate() > 0;
+            return true;
 
         } catch (SQLException e) {
-            System.err.println("ERROR addSubscription: " + e.getMessage());
+            System.err.println("ERROR addSubscriptions: " + e.getMessage());
         }
 
         return false;
     }
 
     // =============================================
-    // UPDATE SUBSCRIPTION
+    // AUTO-RENEWAL (customer toggle + jobs.SubscriptionRenewalEngine)
     // =============================================
-    public boolean updateSubscription(Subscription s) {
-        String sql = "UPDATE subscriptions SET customer_id=?, service_id=?, purchase_date=?, expiry_date=?, status=? WHERE id=?";
+    public boolean setAutoRenew(int customerId, int subscriptionId, boolean autoRenew) {
+        String sql = "UPDATE subscriptions SET auto_renew = ? WHERE id = ? AND customer_id = ?";
+
+        try {
+            boolean updated = JdbcTemplate.PRIMARY.update(sql, autoRenew, subscriptionId, customerId) > 0;
+            if (updated) {
+                SubscriptionCache.invalidateCustomer(customerId);
+            }
+            return updated;
+        } catch (SQLException e) {
+            System.err.println("ERROR setAutoRenew: " + e.getMessage());
+        }
+        return false;
+    }
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+    /**
+     * Locks up to limit auto-renewing subscriptions due as of now and
+     * returns them; rows locked by another renewal worker are skipped, so
+     * workers on any node claim disjoint chunks. Must run inside a
+     * UnitOfWork, which holds the locks until it commits.
+     */
+    public List<Subscription> claimDueRenewals(Date now, int limit) throws SQLException {
+        String sql = "SELECT id, customer_id, service_id, purchase_date, expiry_date, status, auto_renew "
+                + "FROM subscriptions "
+                + "WHERE auto_renew = 1 AND status = 'ACTIVE' AND expiry_date <= ? "
+                + "ORDER BY expiry_date LIMIT ? "
+                + "FOR UPDATE SKIP LOCKED";
+
+        return JdbcTemplate.PRIMARY.query(sql, SUBSCRIPTION, now, limit);
+    }
+
+    // New expiry_date for each renewed subscription, in one JDBC batch
+    public boolean renewAll(List<Subscription> renewed) {
+        String sql = "UPDATE subscriptions SET expiry_date = ? WHERE id = ?";
 
-            stmt.setInt(1, s.getCustomerId());
-            stmt.setInt(2, s.getServiceId());
-            stmt.setTimestamp(3, new Timestamp(s.getPurchaseDate().getTime()));
+        List<Object[]> rows = new ArrayList<>(renewed.size());
+        for (Subscription s : renewed) {
+            rows.add(new Object[]{s.getExpiryDate(), s.getId()});
+        }
 
-            if (s.getExpiryDate() != null) {
-                stmt.setTimestamp(4, new Timestamp(s.getExpiryDate().getTime()));
-            } else {
-                stmt.setNull(4, Types.TIMESTAMP);
+        try {
+            JdbcTemplate.PRIMARY.batch(sql, rows);
+            for (Subscription s : renewed) {
+                SubscriptionCache.invalidateSubscription(s.getId());
             }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("ERROR renewAll: " + e.getMessage());
+        }
+        return false;
+    }
 
-            stmt.setString(5, s.getStatus());
-            stmt.setInt(6, s.getId());
+    // Turns auto-renew off and expires subscriptions that cannot be renewed
+    public boolean lapseRenewals(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return true;
+        }
 
-            return stmt.executeUpdate() > 0;
+        List<Object> params = new ArrayList<>();
+        String sql = "UPDATE subscriptions SET auto_renew = 0, status = 'EXPIRED' WHERE id IN ("
+                + JdbcTemplate.in(ids, params) + ")";
+
+        try {
+            JdbcTemplate.PRIMARY.update(sql, params.toArray());
+            for (int id : ids) {
+                SubscriptionCache.invalidateSubscription(id);
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("ERROR lapseRenewals: " + e.getMessage());
+        }
+        return false;
+    }
+
+    // =============================================
+    // UPDATE SUBSCRIPTION
+    // =============================================
+    public boolean updateSubscription(Subscription s) {
+        String sql = "UPDATE subscriptions SET customer_id=?, service_id=?, purchase_date=?, expiry_date=?, status=? WHERE id=?";
+
+        try {
+            boolean updated = JdbcTemplate.PRIMARY.update(sql,
+                    s.getCustomerId(),
+                    s.getServiceId(),
+                    s.getPurchaseDate(),
+                    s.getExpiryDate(),
+                    s.getStatus(),
+                    s.getId()) > 0;
+
+            if (updated) {
+                SubscriptionCache.invalidateSubscription(s.getId());
+                SubscriptionCache.invalidateCustomer(s.getCustomerId());
+                fireExpiryScheduled(s.getId(), s.getExpiryDate(), s.getStatus());
+            }
+            return updated;
 
         } catch (SQLException e) {
             System.err.println("ERROR updateSubscription: " + e.getMessage());
@@ -233,19 +458,13 @@ public class SubscriptionDAO {
     public boolean activateSubscription(int id, Date purchaseDate, Date expiryDate) {
         String sql = "UPDATE subscriptions SET purchase_date=?, expiry_date=?, status='ACTIVE' WHERE id=?";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setTimestamp(1, new Timestamp(purchaseDate.getTime()));
-
-            if (expiryDate != null) {
-                stmt.setTimestamp(2, new Timestamp(expiryDate.getTime()));
-            } else {
-                stmt.setNull(2, Types.TIMESTAMP);
+        try {
+            boolean activated = JdbcTemplate.PRIMARY.update(sql, purchaseDate, expiryDate, id) > 0;
+            if (activated) {
+                SubscriptionCache.invalidateSubscription(id);
+                fireExpiryScheduled(id, expiryDate, "ACTIVE");
             }
-
-            stmt.setInt(3, id);
-            return stmt.executeUpdate() > 0;
-
+            return activated;
         } catch (SQLException e) {
             System.err.println("ERROR activateSubscription: " + e.getMessage());
         }
@@ -259,11 +478,12 @@ public class SubscriptionDAO {
     public boolean deactivateSubscription(int id) {
         String sql = "UPDATE subscriptions SET status='EXPIRED', expiry_date=NOW() WHERE id=?";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
-
+        try {
+            boolean deactivated = JdbcTemplate.PRIMARY.update(sql, id) > 0;
+            if (deactivated) {
+                SubscriptionCache.invalidateSubscription(id);
+            }
+            return deactivated;
         } catch (SQLException e) {
             System.err.println("ERROR deactivateSubscription: " + e.getMessage());
         }
@@ -273,99 +493,134 @@ public class SubscriptionDAO {
 
     // =============================================
     // GET ALL SUBSCRIPTIONS (ADMIN)
-    // AUTO-EXPIRE INCLUDED
+    // EFFECTIVE STATUS DERIVED IN SQL
     // =============================================
     public List<Subscription> getAllSubscriptions() {
-        List<Subscription> list = new ArrayList<>();
-
-        String sql = "SELECT s.*, c.name AS customer_name, srv.name AS service_name "
+        String sql = "SELECT s.*, " + EFFECTIVE_STATUS + ", c.name AS customer_name, srv.name AS service_name "
                 + "FROM subscriptions s "
                 + "JOIN customers c ON s.customer_id=c.id "
                 + "JOIN services srv ON s.service_id=srv.id "
                 + "ORDER BY s.id DESC";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+        try {
+            return JdbcTemplate.READ.query(sql, SUBSCRIPTION, new Date());
+        } catch (SQLException e) {
+            System.err.println("ERROR getAllSubscriptions: " + e.getMessage());
+        }
 
-            while (rs.next()) {
-                Subscription s = new Subscription();
+        return new ArrayList<>();
+    }
 
-                s.setId(rs.getInt("id"));
-                s.setCustomerId(rs.getInt("customer_id"));
-                s.setServiceId(rs.getInt("service_id"));
-                s.setCustomerName(rs.getString("customer_name"));
-                s.setServiceName(rs.getString("service_name"));
+    // =============================================
+    // ADMIN LIST: ONE PAGE (keyset pagination)
+    // =============================================
+    // Sortable columns of the admin list; s.id is always the tie-breaker
+    private static final KeysetPage<Subscription> PAGES = new KeysetPage<Subscription>("s.id", Subscription::getId)
+            .sortable("purchaseDate", "s.purchase_date", Subscription::getPurchaseDate)
+            .sortable("expiryDate", "s.expiry_date", Subscription::getExpiryDate)
+            .sortable("customerName", "c.name", Subscription::getCustomerName)
+            .sortable("serviceName", "srv.name", Subscription::getServiceName);
+
+    // Position of s in the admin list sorted by sortField, for the next page's seek
+    public static KeysetPage.Key pageKey(Subscription s, String sortField) {
+        return PAGES.keyOf(s, sortField);
+    }
 
-                Timestamp p = rs.getTimestamp("purchase_date");
-                Timestamp e = rs.getTimestamp("expiry_date");
+    /**
+     * One page of the admin subscription list, sorted by sortField (id when
+     * unknown or null) and filtered by filter. Seeks past after (last key of
+     * the previous page) when given, otherwise skips offset rows; see
+     * KeysetPage.
+     */
+    public List<Subscription> getSubscriptionsPage(SubscriptionFilter filter, String sortField, boolean ascending,
+            KeysetPage.Key after, int offset, int limit) {
 
-                Date purchase = p != null ? new Date(p.getTime()) : null;
-                Date expiry = e != null ? new Date(e.getTime()) : null;
+        Date now = new Date();
+        List<Object> params = new ArrayList<>();
+        params.add(now);
 
-                s.setPurchaseDate(purchase);
-                s.setExpiryDate(expiry);
+        StringBuilder sql = new StringBuilder("SELECT s.*, " + EFFECTIVE_STATUS + ", "
+                + "c.name AS customer_name, srv.name AS service_name "
+                + "FROM subscriptions s "
+                + "JOIN customers c ON s.customer_id = c.id "
+                + "JOIN services srv ON s.service_id = srv.id "
+                + "WHERE 1=1");
+        appendFilter(sql, params, filter, now);
+        PAGES.appendPage(sql, params, sortField, ascending, after, offset, limit);
 
-                String status = rs.getString("status");
+        try {
+            return JdbcTemplate.READ.query(sql.toString(), SUBSCRIPTION, params.toArray());
+        } catch (SQLException e) {
+            System.err.println("ERROR getSubscriptionsPage: " + e.getMessage());
+        }
 
-                // AUTO-EXPIRE
-                if ("ACTIVE".equalsIgnoreCase(status) && isExpired(expiry)) {
-                    markSubscriptionExpired(s.getId());
-                    status = "EXPIRED";
-                }
+        return new ArrayList<>();
+    }
 
-                s.setStatus(status);
-                list.add(s);
-            }
+    // Rows matching filter, for the paginator
+    public int countSubscriptions(SubscriptionFilter filter) {
+        List<Object> params = new ArrayList<>();
+
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) "
+                + "FROM subscriptions s "
+                + "JOIN customers c ON s.customer_id = c.id "
+                + "JOIN services srv ON s.service_id = srv.id "
+                + "WHERE 1=1");
+        appendFilter(sql, params, filter, new Date());
 
+        try {
+            return JdbcTemplate.READ.queryInt(sql.toString(), params.toArray());
         } catch (SQLException e) {
-            System.err.println("ERROR getAllSubscriptions: " + e.getMessage());
+            System.err.println("ERROR countSubscriptions: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    // Status filters on the effective status, like EFFECTIVE_STATUS
+    private static void appendFilter(StringBuilder sql, List<Object> params, SubscriptionFilter f, Date now) {
+        if (f == null) {
+            return;
+        }
+
+        if ("ACTIVE".equals(f.getStatus())) {
+            sql.append(" AND s.status = 'ACTIVE' AND (s.expiry_date > ? OR s.auto_renew = 1)");
+            params.add(now);
+        } else if ("EXPIRED".equals(f.getStatus())) {
+            sql.append(" AND (s.status = 'EXPIRED' OR (s.expiry_date <= ? AND s.auto_renew = 0))");
+            params.add(now);
+        }
+
+        if (f.getServiceId() > 0) {
+            sql.append(" AND s.service_id = ?");
+            params.add(f.getServiceId());
         }
 
-        return list;
+        if (f.getCustomerName() != null && !f.getCustomerName().isBlank()) {
+            sql.append(" AND c.name LIKE ?");
+            params.add(f.getCustomerName().trim().replaceAll("([\\\\%_])", "\\\\$1") + "%");
+        }
+
+        if (f.getPurchasedFrom() != null) {
+            sql.append(" AND s.purchase_date >= ?");
+            params.add(f.getPurchasedFrom());
+        }
+        if (f.getPurchasedTo() != null) {
+            sql.append(" AND s.purchase_date < ?");
+            params.add(f.getPurchasedTo());
+        }
     }
 
     // =============================================
     // GET SUBSCRIPTION BY ID
     // =============================================
     public Subscription getSubscriptionById(int id) {
-        String sql = "SELECT s.*, srv.name AS service_name, srv.price AS service_price "
+        String sql = "SELECT s.*, " + EFFECTIVE_STATUS + ", srv.name AS service_name, srv.charge AS service_price "
                 + "FROM subscriptions s "
                 + "JOIN services srv ON s.service_id = srv.id "
                 + "WHERE s.id = ?";
 
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                Subscription s = new Subscription();
-
-                s.setId(rs.getInt("id"));
-                s.setCustomerId(rs.getInt("customer_id"));
-                s.setServiceId(rs.getInt("service_id"));
-                s.setServiceName(rs.getString("service_name"));
-                s.setMonthlyPrice(rs.getDouble("service_price"));
-
-                Timestamp p = rs.getTimestamp("purchase_date");
-                Timestamp e = rs.getTimestamp("expiry_date");
-
-                Date purchase = p != null ? new Date(p.getTime()) : null;
-                Date expiry = e != null ? new Date(e.getTime()) : null;
-
-                s.setPurchaseDate(purchase);
-                s.setExpiryDate(expiry);
-
-                String status = rs.getString("status");
-
-                // AUTO-EXPIRE
-                if ("ACTIVE".equalsIgnoreCase(status) && isExpired(expiry)) {
-                    markSubscriptionExpired(s.getId());
-                    status = "EXPIRED";
-                }
-
-                s.setStatus(status);
-                return s;
-            }
+        try {
+            return JdbcTemplate.PRIMARY.queryOne(sql, SUBSCRIPTION, new Date(), id);
 
         } catch (SQLException e) {
             System.err.println("ERROR getSubscriptionById: " + e.getMessage());
@@ -376,68 +631,31 @@ public class SubscriptionDAO {
 
     // =============================================
     // GET ALL ACTIVE SUBSCRIPTIONS (BILLING)
-    // AUTO-EXPIRE INCLUDED
+    // Rows past expiry are left out even before the sweeper has run
     // =============================================
     public List<Subscription> getActiveSubscriptions() {
-        List<Subscription> list = new ArrayList<>();
-
-        String sql = "SELECT s.*, srv.price AS service_price "
+        String sql = "SELECT s.*, srv.charge AS service_price "
                 + "FROM subscriptions s "
                 + "JOIN services srv ON s.service_id = srv.id "
-                + "WHERE s.status = 'ACTIVE'";
-
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                Subscription s = new Subscription();
-
-                s.setId(rs.getInt("id"));
-                s.setCustomerId(rs.getInt("customer_id"));
-                s.setServiceId(rs.getInt("service_id"));
-                s.setMonthlyPrice(rs.getDouble("service_price"));
-
-                Timestamp p = rs.getTimestamp("purchase_date");
-                Timestamp e = rs.getTimestamp("expiry_date");
-
-                Date purchase = p != null ? new Date(p.getTime()) : null;
-                Date expiry = e != null ? new Date(e.getTime()) : null;
-
-                s.setPurchaseDate(purchase);
-                s.setExpiryDate(expiry);
-
-                String status = rs.getString("status");
-
-                // AUTO-EXPIRE
-                if ("ACTIVE".equalsIgnoreCase(status) && isExpired(expiry)) {
-                    markSubscriptionExpired(s.getId());
-                    status = "EXPIRED";
-                }
-
-                s.setStatus(status);
-                list.add(s);
-            }
+                + "WHERE s.status = 'ACTIVE' AND (s.expiry_date > ? OR s.auto_renew = 1)";
 
+        try {
+            return JdbcTemplate.PRIMARY.query(sql, SUBSCRIPTION, new Date());
         } catch (SQLException e) {
             System.err.println("ERROR getActiveSubscriptions: " + e.getMessage());
         }
 
-        return list;
+        return new ArrayList<>();
     }
 
     // =============================================
     // CHECK IF SUBSCRIPTION BELONGS TO CUSTOMER
     // =============================================
     public boolean customerOwnsSubscription(int customerId, int subscriptionId) {
-        String sql = "SELECT id FROM subscriptions WHERE id = ? AND customer_id = ?";
-
-        try (Connection conn = DBConnectionManager.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, subscriptionId);
-            stmt.setInt(2, customerId);
-
-            ResultSet rs = stmt.executeQuery();
-            return rs.next();
+        String sql = "SELECT COUNT(*) FROM subscriptions WHERE id = ? AND customer_id = ?";
 
+        try {
+            return JdbcTemplate.PRIMARY.queryInt(sql, subscriptionId, customerId) > 0;
         } catch (SQLException e) {
             System.err.println("ERROR customerOwnsSubscription: " + e.getMessage());
         }
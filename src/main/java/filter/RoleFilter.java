@@ -4,33 +4,117 @@ import jakarta.servlet.*;
 import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.*;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import beans.LoginBean;
 import model.User;
+import util.DBConnectionManager;
+import util.JfrEvents;
 
 @WebFilter("/*")
 public class RoleFilter implements Filter {
 
+    // Session attribute: time of this session's last database write
+    private static final String LAST_WRITE_ATTR = "db.lastWriteAt";
+
+    // Bearer token a Prometheus scraper sends for /resources/metrics (blank: admin login only)
+    private static final byte[] SCRAPE_TOKEN = DBConnectionManager.getProperty("metrics.scrape.token", "")
+            .trim().getBytes(StandardCharsets.UTF_8);
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
 
         HttpServletRequest req = (HttpServletRequest) request;
+
+        JfrEvents.RequestEvent event = new JfrEvents.RequestEvent();
+        event.begin();
+        String role = null;
+        String outcome = JfrEvents.OK;
+
+        // ---------------------------
+        // Read-your-writes: a session that wrote recently reads from the primary
+        // ---------------------------
+        HttpSession current = req.getSession(false);
+        if (current != null) {
+            Long lastWrite = (Long) current.getAttribute(LAST_WRITE_ATTR);
+            if (lastWrite != null
+                    && System.currentTimeMillis() - lastWrite < DBConnectionManager.getReadYourWritesMs()) {
+                DBConnectionManager.setReadYourWrites(true);
+            }
+
+            // Customer id for DAO / M-Pesa JFR events raised by this request
+            LoginBean loginBean = (LoginBean) current.getAttribute("loginBean");
+            if (loginBean != null && loginBean.getLoggedInUser() != null) {
+                role = loginBean.getLoggedInUser().getRole();
+                JfrEvents.setCustomerId(loginBean.getCustomerId());
+            }
+        }
+
+        try {
+            filter(req, response, chain);
+        } catch (IOException | ServletException | RuntimeException e) {
+            outcome = JfrEvents.ERROR;
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = req.getMethod();
+                event.path = req.getRequestURI();
+                event.role = role;
+                event.customerId = JfrEvents.currentCustomerId();
+                event.status = ((HttpServletResponse) response).getStatus();
+                event.outcome = outcome;
+                event.commit();
+            }
+            JfrEvents.clearCustomerId();
+
+            if (DBConnectionManager.endRequest()) {
+                HttpSession session = req.getSession(false);
+                if (session != null) {
+                    try {
+                        session.setAttribute(LAST_WRITE_ATTR, System.currentTimeMillis());
+                    } catch (IllegalStateException ignored) {
+                        // session invalidated during the request (logout)
+                    }
+                }
+            }
+        }
+    }
+
+    private void filter(HttpServletRequest req, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
         HttpServletResponse res = (HttpServletResponse) response;
         HttpSession session = req.getSession(false);
-        String path = req.getRequestURI();
+        String path = appPath(req);
+
+        // ---------------------------
+        // Metrics scrape: a machine client authenticates with the token, not a session
+        // ---------------------------
+        String authorization = req.getHeader("Authorization");
+        if (path.startsWith("/resources/metrics") && authorization != null) {
+            if (isScrapeToken(authorization)) {
+                chain.doFilter(req, response);
+            } else {
+                res.setHeader("WWW-Authenticate", "Bearer realm=\"metrics\"");
+                res.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            }
+            return;
+        }
 
         // ---------------------------
         // Public pages that don't require login
         // ---------------------------
-        if (path.endsWith("login.xhtml") ||
-            path.endsWith("register.xhtml") ||
-            path.endsWith("index.xhtml") ||
-            path.contains("/assets/") ||
-            path.contains("/css/") ||
-            path.contains("/js/") ||
-            path.contains("/images/")) {
-
-            chain.doFilter(request, response);
+        if (path.equals("/login.xhtml") ||
+            path.equals("/register.xhtml") ||
+            path.equals("/index.xhtml") ||
+            path.startsWith("/assets/") ||
+            path.startsWith("/css/") ||
+            path.startsWith("/js/") ||
+            path.startsWith("/images/")) {
+
+            chain.doFilter(req, response);
             return;
         }
 
@@ -54,15 +138,16 @@ public class RoleFilter implements Filter {
         // ---------------------------
         // Role-based access control
         // ---------------------------
-        // Admin pages
-        if (path.contains("/admin/") && !"ADMIN".equalsIgnoreCase(role)) {
+        // Admin pages, admin REST resources and the metrics scrape endpoint
+        if ((path.startsWith("/admin/") || path.startsWith("/resources/admin/")
+                || path.startsWith("/resources/metrics")) && !"ADMIN".equalsIgnoreCase(role)) {
             res.sendRedirect(req.getContextPath() + "/accessDenied.xhtml");
             return;
         }
 
         // Customer pages
         // Customer pages are in /customer/ folder
-        if (path.contains("/customer/") && !"CUSTOMER".equalsIgnoreCase(role) && !"ADMIN".equalsIgnoreCase(role)) {
+        if (path.startsWith("/customer/") && !"CUSTOMER".equalsIgnoreCase(role) && !"ADMIN".equalsIgnoreCase(role)) {
             res.sendRedirect(req.getContextPath() + "/accessDenied.xhtml");
             return;
         }
@@ -77,6 +162,26 @@ public class RoleFilter implements Filter {
         // ---------------------------
         // Continue the request chain
         // ---------------------------
-        chain.doFilter(request, response);
+        chain.doFilter(req, response);
+    }
+
+    // "Bearer <token>" matching metrics.scrape.token, compared in constant time
+    private static boolean isScrapeToken(String authorization) {
+        if (SCRAPE_TOKEN.length == 0 || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return false;
+        }
+        byte[] given = authorization.substring(7).trim().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(given, SCRAPE_TOKEN);
+    }
+
+    /**
+     * Path inside the application as the container routes it: decoded,
+     * normalized and without ";param" segments. The raw request URI is not
+     * used for access decisions, since ".../export;x=login.xhtml" still
+     * reaches the export resource.
+     */
+    private static String appPath(HttpServletRequest req) {
+        String pathInfo = req.getPathInfo();
+        return pathInfo == null ? req.getServletPath() : req.getServletPath() + pathInfo;
     }
 }
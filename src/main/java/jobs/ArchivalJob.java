@@ -0,0 +1,95 @@
+package jobs;
+
+import dao.BillingDAO;
+import dao.SubscriptionDAO;
+import util.UnitOfWork;
+
+import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves EXPIRED subscriptions and paid bills older than the retention
+ * window into subscriptions_history / billing_history, so the hot tables
+ * (and every listing that scans them) only hold recent rows.
+ *
+ * Works in small batches, each its own transaction, so locks are short
+ * and a failure only rolls back one batch. Customer pages can still show
+ * archived rows through the includeHistory DAO overloads.
+ */
+public class ArchivalJob {
+
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+
+    private final SubscriptionDAO subscriptionDAO = new SubscriptionDAO();
+    private final BillingDAO billingDAO = new BillingDAO();
+    private final int retentionDays;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile long lastRunAt;
+    private volatile long totalSubscriptions;
+    private volatile long totalBills;
+
+    public ArchivalJob(long intervalMs, int retentionDays, int batchSize) {
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+
+        this.scheduler = JobLeases.schedule("archival", intervalMs, intervalMs,
+                () -> "archived " + archive() + " row(s)");
+    }
+
+    // Returns the number of subscriptions and bills archived
+    public int archive() {
+        Date cutoff = new Date(System.currentTimeMillis() - retentionDays * DAY_MS);
+
+        int subs = drain(() -> subscriptionDAO.archiveExpired(cutoff, batchSize));
+        int bills = drain(() -> billingDAO.archivePaid(cutoff, batchSize));
+
+        if (subs > 0 || bills > 0) {
+            System.out.println("[ArchivalJob] Archived " + subs + " subscription(s) and "
+                    + bills + " bill(s) older than " + retentionDays + " days");
+        }
+        totalSubscriptions += subs;
+        totalBills += bills;
+        lastRunAt = System.currentTimeMillis();
+        return subs + bills;
+    }
+
+    @FunctionalInterface
+    private interface Batch {
+
+        int run();
+    }
+
+    // Runs batch transactions until one moves fewer than batchSize rows or fails
+    private int drain(Batch batch) {
+        int total = 0;
+        int[] moved = new int[1];
+
+        do {
+            if (!UnitOfWork.inTransaction(() -> (moved[0] = batch.run()) >= 0)) {
+                break;
+            }
+            total += moved[0];
+        } while (moved[0] == batchSize);
+
+        return total;
+    }
+
+    public long getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public long getTotalSubscriptions() {
+        return totalSubscriptions;
+    }
+
+    public long getTotalBills() {
+        return totalBills;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
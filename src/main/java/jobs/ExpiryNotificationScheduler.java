@@ -0,0 +1,111 @@
+package jobs;
+
+import dao.NotificationDAO;
+import model.ExpiryNotification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warns customers before their subscription lapses, at each configured
+ * offset (e.g. 1440 and 60 minutes before expiry_date).
+ *
+ * Each run scans, per offset, the expiries that entered its window since
+ * the previous run: (max(last upper bound, now + next smaller offset),
+ * now + offset]. That is one range read on (status, expiry_date) no matter
+ * how many subscriptions are active. The lower bound means a subscription
+ * already inside the T-1h window never gets a late T-24h notice. What was
+ * sent is recorded in subscription_notifications, so restarts and
+ * overlapping runs do not notify twice.
+ */
+public class ExpiryNotificationScheduler {
+
+    private static final int BATCH = 1000;
+
+    private final NotificationDAO notificationDAO = new NotificationDAO();
+    private final NotificationSender sender;
+    private final ScheduledExecutorService scheduler;
+
+    // Offsets in minutes, largest first; upper bound already scanned per offset
+    private final int[] offsets;
+    private final long[] scannedTo;
+
+    private volatile long totalSent;
+
+    public ExpiryNotificationScheduler(int[] offsetMinutes, NotificationSender sender, long intervalMs) {
+        this.sender = sender;
+        this.offsets = Arrays.stream(offsetMinutes).filter(m -> m > 0).boxed()
+                .sorted((a, b) -> b - a).mapToInt(Integer::intValue).distinct().toArray();
+        this.scannedTo = new long[offsets.length];
+
+        this.scheduler = JobLeases.schedule("expiry-notifications", 0, intervalMs, () -> "sent " + run());
+    }
+
+    // Returns the number of notifications sent
+    public int run() {
+        long now = System.currentTimeMillis();
+        long before = totalSent;
+
+        for (int i = 0; i < offsets.length; i++) {
+            long smaller = i + 1 < offsets.length ? offsets[i + 1] : 0;
+            long from = Math.max(scannedTo[i], now + TimeUnit.MINUTES.toMillis(smaller));
+            long to = now + TimeUnit.MINUTES.toMillis(offsets[i]);
+
+            if (from >= to) {
+                continue;
+            }
+
+            try {
+                if (notifyWindow(offsets[i], new Date(from), new Date(to))) {
+                    scannedTo[i] = to;
+                }
+            } catch (RuntimeException e) {
+                // Leave this window to be rescanned, but still serve the shorter offsets
+                System.err.println("[ExpiryNotificationScheduler] " + offsets[i] + " min window failed: " + e.getMessage());
+            }
+        }
+        return (int) (totalSent - before);
+    }
+
+    // Returns false when something could not be sent or recorded; the window is then rescanned
+    private boolean notifyWindow(int offset, Date from, Date to) {
+        while (true) {
+            List<ExpiryNotification> due = notificationDAO.findDue(offset, from, to, BATCH);
+            List<ExpiryNotification> sent = new ArrayList<>(due.size());
+
+            for (ExpiryNotification n : due) {
+                try {
+                    sender.send(n);
+                    sent.add(n);
+                } catch (Exception e) {
+                    System.err.println("[ExpiryNotificationScheduler] Send failed for subscription "
+                            + n.getSubscriptionId() + ": " + e.getMessage());
+                }
+            }
+
+            if (!sent.isEmpty() && !notificationDAO.recordSent(sent, sender.channel())) {
+                return false;
+            }
+            totalSent += sent.size();
+
+            if (sent.size() < due.size()) {
+                return false;
+            }
+            if (due.size() < BATCH) {
+                return true;
+            }
+        }
+    }
+
+    public long getTotalSent() {
+        return totalSent;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
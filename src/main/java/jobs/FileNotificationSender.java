@@ -0,0 +1,38 @@
+package jobs;
+
+import model.ExpiryNotification;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+// Appends one tab-separated line per notification to a local file
+public class FileNotificationSender implements NotificationSender {
+
+    private final Path file;
+
+    public FileNotificationSender(String file) {
+        this.file = Path.of(file.replace("%h", System.getProperty("user.home")));
+    }
+
+    @Override
+    public String channel() {
+        return "file";
+    }
+
+    @Override
+    public synchronized void send(ExpiryNotification n) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+
+            out.write(Instant.now() + "\t" + n.getSubscriptionId() + "\t" + n.getCustomerId()
+                    + "\t" + n.getCustomerPhone() + "\t" + n.getCustomerEmail()
+                    + "\t" + NotificationSender.message(n));
+            out.newLine();
+        }
+    }
+}
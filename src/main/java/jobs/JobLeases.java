@@ -0,0 +1,215 @@
+package jobs;
+
+import dao.JobLeaseDAO;
+import util.DBConnectionManager;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Makes a scheduled job run on one node of the cluster at a time, using a
+ * lease row per job in MySQL (job_leases) instead of an outside
+ * coordinator.
+ *
+ * Every node keeps scheduling every job; each run first calls
+ * runExclusive(), which takes or extends the job's lease and skips the run
+ * when another node holds it. The holder keeps the lease between runs with
+ * a heartbeat every ttl/3, so leadership stays put. If the holder dies the
+ * lease runs out after jobs.lease.ttlMs and the next node to reach the job
+ * takes it over; on a clean undeploy leases are released at once.
+ *
+ * Each run is recorded in job_runs (node, start, end, outcome, detail).
+ * A lease is not a fence: a node that stalls longer than the ttl can
+ * overlap with the new holder for one run, so the jobs themselves stay
+ * safe to overlap (conditional UPDATEs, SKIP LOCKED, INSERT IGNORE).
+ *
+ * With jobs.lease.ttlMs=0 jobs run on every node without leases or
+ * history, as on a single server.
+ */
+public final class JobLeases {
+
+    private static final long PRUNE_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+    private static final int PRUNE_BATCH = 1000;
+
+    private static final JobLeaseDAO DAO = new JobLeaseDAO();
+    private static final String OWNER = nodeId();
+    private static final long TTL_MS = DBConnectionManager.getIntProperty("jobs.lease.ttlMs", 30000);
+    private static final int RETENTION_DAYS = DBConnectionManager.getIntProperty("jobs.runs.retentionDays", 30);
+
+    // Jobs whose lease this node currently holds
+    private static final Set<String> HELD = ConcurrentHashMap.newKeySet();
+
+    private static ScheduledExecutorService heartbeat;
+    private static volatile long lastPruneAt;
+
+    private JobLeases() {
+    }
+
+    /**
+     * Runs body if this node holds (or can take) the lease on job, and
+     * records the run. body returns a short detail for job_runs. Returns
+     * false when the run was skipped because another node holds the lease.
+     */
+    public static boolean runExclusive(String job, Supplier<String> body) {
+        if (TTL_MS <= 0) {
+            guarded(job, body::get).run();
+            return true;
+        }
+
+        if (!DAO.tryAcquire(job, OWNER, TTL_MS)) {
+            if (HELD.remove(job)) {
+                System.err.println("[JobLeases] Lost lease on " + job);
+            }
+            return false;
+        }
+        if (HELD.add(job)) {
+            System.out.println("[JobLeases] " + OWNER + " now runs " + job);
+            DAO.abandonRuns(job, OWNER);
+        }
+
+        long runId = DAO.startRun(job, OWNER);
+        try {
+            String detail = body.get();
+            DAO.finishRun(runId, true, detail);
+        } catch (RuntimeException e) {
+            System.err.println("[JobLeases] " + job + " failed: " + e.getMessage());
+            DAO.finishRun(runId, false, String.valueOf(e));
+        }
+        return true;
+    }
+
+    // =============================================
+    // SCHEDULING (every background job goes through here)
+    // =============================================
+    /**
+     * Runs body under the lease on job every periodMs (fixed delay, first
+     * run after initialDelayMs) on a daemon thread named after the job.
+     * Shut the returned scheduler down to stop it.
+     */
+    public static ScheduledExecutorService schedule(String job, long initialDelayMs, long periodMs,
+            Supplier<String> body) {
+        ScheduledExecutorService scheduler = newScheduler(job);
+        scheduler.scheduleWithFixedDelay(guarded(job, () -> runExclusive(job, body)),
+                initialDelayMs, periodMs, TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+
+    // schedule() once a day at hourOfDay server time; fixed rate, so the start time does not drift
+    public static ScheduledExecutorService scheduleDaily(String job, int hourOfDay, Supplier<String> body) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(hourOfDay, 0);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+
+        ScheduledExecutorService scheduler = newScheduler(job);
+        scheduler.scheduleAtFixedRate(guarded(job, () -> runExclusive(job, body)),
+                Duration.between(now, next).toMillis(), DAY_MS, TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+
+    // Single daemon thread, for jobs that are not leased or schedule several tasks
+    public static ScheduledExecutorService newScheduler(String threadName) {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * task, logging instead of throwing any RuntimeException: a periodic
+     * task that throws is silently cancelled by its executor.
+     */
+    public static Runnable guarded(String name, Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("[JobLeases] " + name + " failed: " + e);
+            }
+        };
+    }
+
+    // =============================================
+    // HEARTBEAT (started / stopped by JobsListener)
+    // =============================================
+    static synchronized void start() {
+        if (TTL_MS <= 0 || heartbeat != null) {
+            return;
+        }
+
+        heartbeat = newScheduler("job-lease-heartbeat");
+
+        long period = Math.max(1, TTL_MS / 3);
+        heartbeat.scheduleWithFixedDelay(guarded("job-lease-heartbeat", JobLeases::beat),
+                period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Stops the heartbeat and hands every held lease back
+    static synchronized void shutdown() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+            heartbeat = null;
+        }
+        for (String job : HELD) {
+            DAO.release(job, OWNER);
+        }
+        HELD.clear();
+    }
+
+    private static void beat() {
+        for (String job : HELD) {
+            if (!DAO.tryAcquire(job, OWNER, TTL_MS)) {
+                HELD.remove(job);
+                System.err.println("[JobLeases] Lost lease on " + job);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (RETENTION_DAYS > 0 && now - lastPruneAt >= PRUNE_INTERVAL_MS) {
+            lastPruneAt = now;
+            Date cutoff = new Date(now - RETENTION_DAYS * DAY_MS);
+            while (DAO.pruneRuns(cutoff, PRUNE_BATCH) == PRUNE_BATCH) {
+                // keep each DELETE short
+            }
+        }
+    }
+
+    // host/pid/random, unique even when containers reuse host names and pids
+    private static String nodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "/" + ProcessHandle.current().pid() + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    // =============================================
+    // GETTERS
+    // =============================================
+    public static String getOwner() {
+        return OWNER;
+    }
+
+    public static long getTtlMs() {
+        return TTL_MS;
+    }
+
+    public static Set<String> getHeld() {
+        return Set.copyOf(HELD);
+    }
+}
@@ -0,0 +1,167 @@
+package jobs;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import util.DBConnectionManager;
+
+/**
+ * Starts the background jobs on deploy and stops them on undeploy.
+ * Intervals come from db.properties (jobs.*); 0 disables a job.
+ *
+ * Every node schedules every job. The sweeper, renewal engine, archival
+ * job, rollup reconciliation and notification scheduler only run on the
+ * node holding their JobLeases lease. The expiry wheel runs on each node: it only knows the
+ * expiries written through that node, and its UPDATEs re-check the row.
+ *
+ * Registered in web.xml after util.DBContextListener (migrations first,
+ * pool shut down last).
+ */
+public class JobsListener implements ServletContextListener {
+
+    private static SubscriptionExpirySweeper expirySweeper;
+    private static SubscriptionExpiryWheel expiryWheel;
+    private static ExpiryNotificationScheduler notificationScheduler;
+    private static SubscriptionRenewalEngine renewalEngine;
+    private static ArchivalJob archivalJob;
+    private static RollupReconciliationJob rollupJob;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        JobLeases.start();
+
+        int wheelTickMs = DBConnectionManager.getIntProperty("jobs.expiryWheel.tickMs", 500);
+        if (wheelTickMs > 0) {
+            expiryWheel = new SubscriptionExpiryWheel(wheelTickMs);
+        }
+
+        int expiryIntervalMs = DBConnectionManager.getIntProperty("jobs.expiry.intervalMs", 60000);
+        if (expiryIntervalMs > 0) {
+            expirySweeper = new SubscriptionExpirySweeper(expiryIntervalMs,
+                    DBConnectionManager.getIntProperty("jobs.expiry.batchSize", 1000));
+        }
+
+        int renewalIntervalMs = DBConnectionManager.getIntProperty("jobs.renewal.intervalMs", 60000);
+        if (renewalIntervalMs > 0) {
+            renewalEngine = new SubscriptionRenewalEngine(renewalIntervalMs,
+                    DBConnectionManager.getIntProperty("jobs.renewal.workers", 4),
+                    DBConnectionManager.getIntProperty("jobs.renewal.chunkSize", 500));
+        }
+
+        int archiveIntervalMs = DBConnectionManager.getIntProperty("jobs.archive.intervalMs", 3600000);
+        if (archiveIntervalMs > 0) {
+            archivalJob = new ArchivalJob(archiveIntervalMs,
+                    DBConnectionManager.getIntProperty("jobs.archive.retentionDays", 365),
+                    DBConnectionManager.getIntProperty("jobs.archive.batchSize", 500));
+        }
+
+        int rollupHour = DBConnectionManager.getIntProperty("jobs.rollup.reconcileHour", 3);
+        if (rollupHour >= 0 && rollupHour < 24) {
+            rollupJob = new RollupReconciliationJob(rollupHour,
+                    DBConnectionManager.getIntProperty("jobs.rollup.reconcileMonths", 3));
+        }
+
+        int notifyIntervalMs = DBConnectionManager.getIntProperty("jobs.notify.intervalMs", 60000);
+        NotificationSender sender = notificationSender();
+        if (notifyIntervalMs > 0 && sender != null) {
+            notificationScheduler = new ExpiryNotificationScheduler(
+                    offsets(DBConnectionManager.getProperty("jobs.notify.offsetsMinutes", "1440,60")),
+                    sender, notifyIntervalMs);
+        }
+    }
+
+    // jobs.notify.sender: "log", "file" or the class name of a NotificationSender
+    private static NotificationSender notificationSender() {
+        String type = DBConnectionManager.getProperty("jobs.notify.sender", "log").trim();
+
+        switch (type) {
+            case "log" -> {
+                return new LogNotificationSender();
+            }
+            case "file" -> {
+                return new FileNotificationSender(
+                        DBConnectionManager.getProperty("jobs.notify.file", "%h/telecom-notifications.log"));
+            }
+            default -> {
+                try {
+                    return (NotificationSender) Class.forName(type).getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    System.err.println("[JobsListener] Invalid jobs.notify.sender " + type + ": " + e);
+                    return null;
+                }
+            }
+        }
+    }
+
+    private static int[] offsets(String value) {
+        try {
+            return java.util.Arrays.stream(value.split(","))
+                    .map(String::trim)
+                    .filter(v -> !v.isEmpty())
+                    .mapToInt(Integer::parseInt)
+                    .toArray();
+        } catch (NumberFormatException e) {
+            System.err.println("[JobsListener] Invalid jobs.notify.offsetsMinutes " + value + ", using 1440,60");
+            return new int[]{1440, 60};
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (rollupJob != null) {
+            rollupJob.shutdown();
+            rollupJob = null;
+        }
+        if (archivalJob != null) {
+            archivalJob.shutdown();
+            archivalJob = null;
+        }
+        if (renewalEngine != null) {
+            renewalEngine.shutdown();
+            renewalEngine = null;
+        }
+        if (notificationScheduler != null) {
+            notificationScheduler.shutdown();
+            notificationScheduler = null;
+        }
+        if (expiryWheel != null) {
+            expiryWheel.shutdown();
+            expiryWheel = null;
+        }
+        if (expirySweeper != null) {
+            expirySweeper.shutdown();
+            expirySweeper = null;
+        }
+        SubscriptionImport.shutdown();
+        JobLeases.shutdown();
+    }
+
+    // Running expiry wheel, or null when disabled
+    public static SubscriptionExpiryWheel getExpiryWheel() {
+        return expiryWheel;
+    }
+
+    // Running rollup reconciliation, or null when disabled
+    public static RollupReconciliationJob getRollupJob() {
+        return rollupJob;
+    }
+
+    // Running archival job, or null when disabled
+    public static ArchivalJob getArchivalJob() {
+        return archivalJob;
+    }
+
+    // Running renewal engine, or null when disabled
+    public static SubscriptionRenewalEngine getRenewalEngine() {
+        return renewalEngine;
+    }
+
+    // Running notification scheduler, or null when disabled
+    public static ExpiryNotificationScheduler getNotificationScheduler() {
+        return notificationScheduler;
+    }
+
+    // Running sweeper, or null when disabled
+    public static SubscriptionExpirySweeper getExpirySweeper() {
+        return expirySweeper;
+    }
+}
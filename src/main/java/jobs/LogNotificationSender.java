@@ -0,0 +1,20 @@
+package jobs;
+
+import model.ExpiryNotification;
+
+// Writes notifications to the server log; for development and testing
+public class LogNotificationSender implements NotificationSender {
+
+    @Override
+    public String channel() {
+        return "log";
+    }
+
+    @Override
+    public void send(ExpiryNotification n) {
+        System.out.println("[Notification] customer=" + n.getCustomerId()
+                + " phone=" + n.getCustomerPhone()
+                + " email=" + n.getCustomerEmail()
+                + " | " + NotificationSender.message(n));
+    }
+}
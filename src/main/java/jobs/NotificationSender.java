@@ -0,0 +1,30 @@
+package jobs;
+
+import model.ExpiryNotification;
+
+/**
+ * Delivers pre-expiry notifications (SMS gateway, e-mail, ...). The
+ * scheduler records a notification as sent only when send() returns.
+ */
+public interface NotificationSender {
+
+    // Stored with each sent notification, e.g. "log", "file", "sms"
+    String channel();
+
+    void send(ExpiryNotification notification) throws Exception;
+
+    // Customer-facing text, e.g. "Hi Jane, your Daily Data bundle expires in 1 hour (2025-01-31 18:00)."
+    static String message(ExpiryNotification n) {
+        int minutes = n.getOffsetMinutes();
+        String in = minutes % 1440 == 0 ? plural(minutes / 1440, "day")
+                : minutes % 60 == 0 ? plural(minutes / 60, "hour")
+                : plural(minutes, "minute");
+
+        return "Hi " + n.getCustomerName() + ", your " + n.getServiceName() + " bundle expires in " + in
+                + " (" + new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm").format(n.getExpiryDate()) + ").";
+    }
+
+    private static String plural(int n, String unit) {
+        return n + " " + unit + (n == 1 ? "" : "s");
+    }
+}
@@ -0,0 +1,64 @@
+package jobs;
+
+import dao.BillingDAO;
+import util.UnitOfWork;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Nightly rebuild of billing_monthly_rollup from the bills, correcting any
+ * drift from writes that bypassed BillingDAO (manual SQL, restores).
+ *
+ * Rebuilds the last reconcileMonths months (all months when 0), one month
+ * per transaction so bill writes are only held up for that month.
+ */
+public class RollupReconciliationJob {
+
+    private final BillingDAO billingDAO = new BillingDAO();
+    private final int reconcileMonths;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile long lastRunAt;
+    private volatile long totalCorrected;
+
+    public RollupReconciliationJob(int hourOfDay, int reconcileMonths) {
+        this.reconcileMonths = reconcileMonths;
+
+        this.scheduler = JobLeases.scheduleDaily("rollup-reconciliation", hourOfDay,
+                () -> "corrected " + reconcile() + " month(s)");
+    }
+
+    /**
+     * Rebuilds the configured months. Returns the number of months whose
+     * rollup had drifted.
+     */
+    public int reconcile() {
+        int corrected = 0;
+        int[] result = new int[1];
+
+        for (String month : billingDAO.getRollupMonths(reconcileMonths)) {
+            if (UnitOfWork.inTransaction(() -> (result[0] = billingDAO.rebuildRollupMonth(month)) >= 0)
+                    && result[0] > 0) {
+                System.out.println("[RollupReconciliationJob] Corrected drift in " + month);
+                corrected++;
+            }
+        }
+
+        lastRunAt = System.currentTimeMillis();
+        totalCorrected += corrected;
+        return corrected;
+    }
+
+    public long getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public long getTotalCorrected() {
+        return totalCorrected;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,62 @@
+package jobs;
+
+import dao.SubscriptionDAO;
+
+import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Periodically moves ACTIVE subscriptions past their expiry_date to
+ * EXPIRED, a batch of rows per UPDATE, so read paths never have to.
+ */
+public class SubscriptionExpirySweeper {
+
+    private final SubscriptionDAO subscriptionDAO = new SubscriptionDAO();
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile long lastRunAt;
+    private volatile long totalExpired;
+
+    public SubscriptionExpirySweeper(long intervalMs, int batchSize) {
+        this.batchSize = batchSize;
+
+        this.scheduler = JobLeases.schedule("subscription-expiry", 0, intervalMs, () -> "expired " + sweep());
+    }
+
+    /**
+     * Expires everything due as of now, batch by batch. Returns the number
+     * of subscriptions expired.
+     */
+    public int sweep() {
+        Date now = new Date();
+        int expired = 0;
+
+        int n;
+        do {
+            n = subscriptionDAO.expireDue(now, batchSize);
+            if (n > 0) {
+                expired += n;
+            }
+        } while (n == batchSize);
+
+        if (expired > 0) {
+            System.out.println("[SubscriptionExpirySweeper] Expired " + expired + " subscription(s)");
+        }
+        lastRunAt = System.currentTimeMillis();
+        totalExpired += expired;
+        return expired;
+    }
+
+    public long getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public long getTotalExpired() {
+        return totalExpired;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
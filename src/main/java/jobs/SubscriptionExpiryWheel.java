@@ -0,0 +1,118 @@
+package jobs;
+
+import dao.SubscriptionDAO;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires subscriptions within a tick of their expiry_date without polling
+ * the table.
+ *
+ * On start the ACTIVE subscriptions are loaded into a TimingWheel; after
+ * that SubscriptionDAO reports new and changed expiries as they are
+ * written. Every tick the due ids are flushed to MySQL in IN-list batches
+ * that re-check status and expiry_date, so renewed or rolled-back rows are
+ * left alone. The wheel lives only in memory and is rebuilt from the table
+ * on restart; SubscriptionExpirySweeper remains as a slow safety net.
+ */
+public class SubscriptionExpiryWheel implements SubscriptionDAO.ExpiryListener {
+
+    private static final int FLUSH_BATCH = 500;
+
+    private final SubscriptionDAO subscriptionDAO = new SubscriptionDAO();
+    private final ScheduledExecutorService scheduler;
+    private final TimingWheel wheel;
+
+    // Guarded by wheel
+    private List<Integer> due = new ArrayList<>();
+
+    private volatile long totalExpired;
+
+    public SubscriptionExpiryWheel(long tickMs) {
+        this.wheel = new TimingWheel(tickMs, System.currentTimeMillis());
+
+        // Per node, so not leased (see JobsListener)
+        this.scheduler = JobLeases.newScheduler("subscription-expiry-wheel");
+
+        // Listen before loading so nothing written during the load is missed
+        SubscriptionDAO.addExpiryListener(this);
+        scheduler.execute(this::load);
+        scheduler.scheduleAtFixedRate(JobLeases.guarded("subscription-expiry-wheel", this::tick),
+                tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void expiryScheduled(int subscriptionId, Date expiryDate) {
+        synchronized (wheel) {
+            if (!wheel.add(subscriptionId, expiryDate.getTime())) {
+                due.add(subscriptionId);
+            }
+        }
+    }
+
+    public int getScheduled() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    public long getTotalExpired() {
+        return totalExpired;
+    }
+
+    public void shutdown() {
+        SubscriptionDAO.removeExpiryListener(this);
+        scheduler.shutdownNow();
+    }
+
+    // =============================================
+    // HELPERS
+    // =============================================
+    private void load() {
+        long start = System.currentTimeMillis();
+        try {
+            subscriptionDAO.forEachActiveExpiry(this);
+            System.out.println("[SubscriptionExpiryWheel] Loaded " + getScheduled() + " active subscription(s) in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (SQLException e) {
+            System.err.println("[SubscriptionExpiryWheel] Load failed, relying on the sweeper: " + e.getMessage());
+        }
+    }
+
+    private void tick() {
+        List<Integer> batch;
+        synchronized (wheel) {
+            wheel.advanceTo(System.currentTimeMillis(), due::add);
+            if (due.isEmpty()) {
+                return;
+            }
+            batch = due;
+            due = new ArrayList<>();
+        }
+
+        flush(batch);
+    }
+
+    private void flush(List<Integer> batch) {
+        Date now = new Date();
+
+        for (int from = 0; from < batch.size(); from += FLUSH_BATCH) {
+            List<Integer> chunk = batch.subList(from, Math.min(from + FLUSH_BATCH, batch.size()));
+            int n = subscriptionDAO.expireIfDue(chunk, now);
+
+            if (n < 0) {
+                // Database unavailable: retry the rest on the next tick
+                synchronized (wheel) {
+                    due.addAll(batch.subList(from, batch.size()));
+                }
+                return;
+            }
+            totalExpired += n;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package jobs;
+
+import dao.BillingDAO;
+import dao.CustomerDAO;
+import dao.ServiceDAO;
+import dao.SubscriptionDAO;
+import model.Billing;
+import model.Service;
+import model.Subscription;
+import util.ExpiryCalculator;
+import util.UnitOfWork;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * One bulk subscription import from a CSV file of
+ * customer,service,start rows:
+ *
+ * <pre>
+ * customer,service,start
+ * 42,Daily Data 1GB,2025-02-01
+ * jane@corp.co.ke,7,2025-02-01 08:30
+ * </pre>
+ *
+ * customer is an id or email, service an id or name (active services
+ * only), start a date/time (empty = now). The file is read line by line;
+ * every chunkSize rows are validated together (one customer lookup,
+ * cached service durations) and written in one transaction as two JDBC
+ * batches: the subscriptions and their unpaid bills. A chunk that fails
+ * rolls back alone. Progress is exposed through volatile counters and
+ * only the first MAX_ERRORS error lines are kept.
+ *
+ * Imports run one at a time on a background thread, which JobsListener
+ * stops on undeploy.
+ */
+public class SubscriptionImport implements Runnable {
+
+    private static final int MAX_ERRORS = 200;
+
+    private static final DateTimeFormatter MINUTES = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter SECONDS = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "subscription-import");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final SubscriptionDAO subscriptionDAO = new SubscriptionDAO();
+    private final BillingDAO billingDAO = new BillingDAO();
+    private final CustomerDAO customerDAO = new CustomerDAO();
+    private final ServiceDAO serviceDAO = new ServiceDAO();
+
+    private final Path file;
+    private final int chunkSize;
+
+    private volatile boolean started;
+    private volatile boolean done;
+    private volatile long rowsRead;
+    private volatile long imported;
+    private volatile long failed;
+    private volatile String fatalError;
+    private final List<String> errors = new ArrayList<>();
+
+    private static final class Row {
+
+        final int line;
+        final String customer;
+        final String service;
+        final String start;
+
+        Row(int line, String customer, String service, String start) {
+            this.line = line;
+            this.customer = customer;
+            this.service = service;
+            this.start = start;
+        }
+    }
+
+    private SubscriptionImport(Path file, int chunkSize) {
+        this.file = file;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    // Queues an import of file, which is deleted once it has been read
+    public static SubscriptionImport start(Path file, int chunkSize) {
+        SubscriptionImport job = new SubscriptionImport(file, chunkSize);
+        EXECUTOR.submit(job);
+        return job;
+    }
+
+    // Stops the import thread on undeploy (JobsListener); a running import stops after its current chunk
+    static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+
+    @Override
+    public void run() {
+        started = true;
+        List<Row> chunk = new ArrayList<>(chunkSize);
+
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                List<String> fields = parseCsvLine(line);
+                if (lineNo == 1 && fields.get(0).trim().toLowerCase(Locale.ROOT).startsWith("customer")) {
+                    continue; // header
+                }
+
+                rowsRead++;
+                if (fields.size() < 2 || fields.get(0).isBlank() || fields.get(1).isBlank()) {
+                    reject(lineNo, "expected customer,service[,start]");
+                    continue;
+                }
+
+                chunk.add(new Row(lineNo, fields.get(0).trim(), fields.get(1).trim(),
+                        fields.size() > 2 ? fields.get(2).trim() : ""));
+
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk);
+                    chunk.clear();
+
+                    if (Thread.currentThread().isInterrupted()) {
+                        fatalError = "stopped by undeploy after line " + lineNo;
+                        return;
+                    }
+                }
+            }
+            importChunk(chunk);
+
+        } catch (IOException | RuntimeException e) {
+            fatalError = e.getMessage();
+            System.err.println("[SubscriptionImport] Import aborted: " + e);
+        } finally {
+            done = true;
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("[SubscriptionImport] Could not delete " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void importChunk(List<Row> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            keys.add(row.customer);
+        }
+        Map<String, Integer> customerIds = customerDAO.resolveCustomerIds(keys);
+
+        long now = System.currentTimeMillis();
+        List<Subscription> subs = new ArrayList<>(chunk.size());
+        List<Billing> bills = new ArrayList<>(chunk.size());
+
+        for (Row row : chunk) {
+            Integer customerId = customerIds.get(row.customer);
+            if (customerId == null) {
+                reject(row.line, "unknown customer " + row.customer);
+                continue;
+            }
+
+            Service service = serviceDAO.findActiveService(row.service);
+            if (service == null) {
+                reject(row.line, "unknown or inactive service " + row.service);
+                continue;
+            }
+
+            Date purchase;
+            Date expiry;
+            try {
+                LocalDateTime start = parseStart(row.start);
+                LocalDateTime end = ExpiryCalculator.calculateExpiry(start, service);
+                purchase = Date.from(start.atZone(ZoneId.systemDefault()).toInstant());
+                expiry = Date.from(end.atZone(ZoneId.systemDefault()).toInstant());
+            } catch (DateTimeParseException e) {
+                reject(row.line, "invalid start " + row.start);
+                continue;
+            } catch (IllegalArgumentException e) {
+                reject(row.line, e.getMessage());
+                continue;
+            }
+
+            subs.add(new Subscription(customerId, service.getId(), purchase, expiry,
+                    expiry.getTime() > now ? "ACTIVE" : "EXPIRED"));
+
+            Billing bill = new Billing();
+            bill.setCustomerId(customerId);
+            bill.setServiceId(service.getId());
+            bill.setAmount(service.getCharge());
+            bill.setBillingDate(purchase);
+            bill.setPaid(false);
+            bills.add(bill);
+        }
+
+        if (subs.isEmpty()) {
+            return;
+        }
+
+        boolean ok = UnitOfWork.inTransaction(()
+                -> subscriptionDAO.addSubscriptions(subs) && billingDAO.generateBills(bills));
+
+        if (ok) {
+            imported += subs.size();
+        } else {
+            failed += subs.size();
+            addError("Lines " + chunk.get(0).line + "-" + chunk.get(chunk.size() - 1).line
+                    + ": " + subs.size() + " row(s) rolled back (database error)");
+        }
+    }
+
+    // =============================================
+    // HELPERS
+    // =============================================
+    private void reject(int line, String reason) {
+        failed++;
+        addError("Line " + line + ": " + reason);
+    }
+
+    private void addError(String message) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+
+    // yyyy-MM-dd, yyyy-MM-dd HH:mm or yyyy-MM-dd HH:mm:ss ('T' also accepted); empty = now
+    private static LocalDateTime parseStart(String value) {
+        if (value.isEmpty()) {
+            return LocalDateTime.now();
+        }
+
+        String v = value.replace('T', ' ');
+        return switch (v.length()) {
+            case 10 -> LocalDate.parse(v).atStartOfDay();
+            case 16 -> LocalDateTime.parse(v, MINUTES);
+            default -> LocalDateTime.parse(v, SECONDS);
+        };
+    }
+
+    // One CSV record; double quotes may wrap a field and "" escapes a quote
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // =============================================
+    // PROGRESS
+    // =============================================
+    public boolean isStarted() {
+        return started;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public String getFatalError() {
+        return fatalError;
+    }
+
+    // First MAX_ERRORS problems, in file order
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    public boolean isErrorsTruncated() {
+        synchronized (errors) {
+            return errors.size() == MAX_ERRORS;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package jobs;
+
+import dao.BillingDAO;
+import dao.ServiceDAO;
+import dao.SubscriptionDAO;
+import model.Billing;
+import model.Service;
+import model.Subscription;
+import util.ExpiryCalculator;
+import util.UnitOfWork;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renews auto_renew subscriptions when they expire: the expiry moves on by
+ * one service term and an unpaid bill for the term is generated.
+ *
+ * Each run starts several workers. A worker repeatedly claims a chunk of
+ * due subscriptions with SELECT ... FOR UPDATE SKIP LOCKED, so workers
+ * (also on other nodes) never wait for or double-renew each other's rows,
+ * computes the new expiries from the cached service catalog, and writes
+ * the expiry updates and bills as two JDBC batches in the same
+ * transaction. A worker stops when a claim comes back short.
+ *
+ * The new term starts at the old expiry_date, so terms stay back to back.
+ * A subscription that lapsed more than one term ago (e.g. after downtime)
+ * starts a fresh term now instead of being billed for the missed ones.
+ * Subscriptions whose service is inactive or has no duration are expired
+ * with auto-renew turned off.
+ */
+public class SubscriptionRenewalEngine {
+
+    private final SubscriptionDAO subscriptionDAO = new SubscriptionDAO();
+    private final BillingDAO billingDAO = new BillingDAO();
+    private final ServiceDAO serviceDAO = new ServiceDAO();
+
+    private final int workers;
+    private final int chunkSize;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService pool;
+
+    private volatile long lastRunAt;
+    private volatile long totalRenewed;
+
+    public SubscriptionRenewalEngine(long intervalMs, int workers, int chunkSize) {
+        this.workers = Math.max(1, workers);
+        this.chunkSize = chunkSize;
+
+        AtomicInteger n = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(this.workers, r -> {
+            Thread t = new Thread(r, "subscription-renewal-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.scheduler = JobLeases.schedule("subscription-renewal", 0, intervalMs, () -> "renewed " + renewDue());
+    }
+
+    /**
+     * Renews everything due as of now on all workers. Returns the number
+     * of subscriptions renewed.
+     */
+    public int renewDue() {
+        Date now = new Date();
+        int renewed = 0;
+
+        try {
+            List<Callable<Integer>> tasks = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                tasks.add(() -> drain(now));
+            }
+
+            for (Future<Integer> f : pool.invokeAll(tasks)) {
+                try {
+                    renewed += f.get();
+                } catch (ExecutionException e) {
+                    System.err.println("[SubscriptionRenewalEngine] Worker failed: " + e.getCause());
+                }
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (renewed > 0) {
+            System.out.println("[SubscriptionRenewalEngine] Renewed " + renewed + " subscription(s)");
+        }
+        lastRunAt = System.currentTimeMillis();
+        totalRenewed += renewed;
+        return renewed;
+    }
+
+    // One worker: claim and renew chunks until none are left
+    private int drain(Date now) {
+        int total = 0;
+        int[] claimed = new int[1];
+        int[] renewed = new int[1];
+
+        do {
+            claimed[0] = 0;
+            renewed[0] = 0;
+
+            boolean ok = UnitOfWork.inTransaction(() -> {
+                List<Subscription> due = subscriptionDAO.claimDueRenewals(now, chunkSize);
+                claimed[0] = due.size();
+                return due.isEmpty() || renewChunk(due, now, renewed);
+            });
+
+            if (!ok) {
+                break;
+            }
+            total += renewed[0];
+        } while (claimed[0] == chunkSize);
+
+        return total;
+    }
+
+    private boolean renewChunk(List<Subscription> due, Date now, int[] renewed) {
+        List<Subscription> renew = new ArrayList<>(due.size());
+        List<Billing> bills = new ArrayList<>(due.size());
+        List<Integer> lapse = new ArrayList<>();
+
+        for (Subscription s : due) {
+            Service service = serviceDAO.findActiveService(String.valueOf(s.getServiceId()));
+
+            LocalDateTime start = toLocal(s.getExpiryDate());
+            LocalDateTime end;
+            try {
+                if (service == null) {
+                    throw new IllegalArgumentException("service " + s.getServiceId() + " is not active");
+                }
+                end = ExpiryCalculator.calculateExpiry(start, service);
+                if (!end.isAfter(toLocal(now))) {
+                    start = LocalDateTime.now();
+                    end = ExpiryCalculator.calculateExpiry(start, service);
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("[SubscriptionRenewalEngine] Not renewing subscription " + s.getId() + ": " + e.getMessage());
+                lapse.add(s.getId());
+                continue;
+            }
+
+            s.setExpiryDate(toDate(end));
+            renew.add(s);
+
+            Billing bill = new Billing();
+            bill.setCustomerId(s.getCustomerId());
+            bill.setServiceId(s.getServiceId());
+            bill.setAmount(service.getCharge());
+            bill.setBillingDate(toDate(start));
+            bill.setPaid(false);
+            bills.add(bill);
+        }
+
+        renewed[0] = renew.size();
+        return (renew.isEmpty() || (subscriptionDAO.renewAll(renew) && billingDAO.generateBills(bills)))
+                && subscriptionDAO.lapseRenewals(lapse);
+    }
+
+    private static LocalDateTime toLocal(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    public long getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public long getTotalRenewed() {
+        return totalRenewed;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        pool.shutdownNow();
+    }
+}
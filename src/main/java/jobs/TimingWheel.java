@@ -0,0 +1,130 @@
+package jobs;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Hierarchical timing wheel of int ids (subscription ids) keyed by a
+ * deadline in epoch millis.
+ *
+ * Five levels of 64 slots with a tickMs resolution at level 0. Level n
+ * slots span 64^n ticks, so with 1 s ticks the wheel covers 64^5 s
+ * (about 34 years). add() and each tick are O(1) (amortised over
+ * cascades). An entry fires at the first tick whose time is at or after
+ * its deadline.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+final class TimingWheel {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+
+    private final long tickMs;
+    private final Node[][] wheels = new Node[LEVELS][SLOTS];
+
+    // Last tick processed; entries at or before it fire immediately
+    private long currentTick;
+    private int size;
+
+    private static final class Node {
+
+        final int id;
+        final long tick;
+        Node next;
+
+        Node(int id, long tick, Node next) {
+            this.id = id;
+            this.tick = tick;
+            this.next = next;
+        }
+    }
+
+    TimingWheel(long tickMs, long nowMs) {
+        this.tickMs = tickMs;
+        this.currentTick = nowMs / tickMs;
+    }
+
+    /**
+     * Schedules id for deadlineMs. Returns false (and schedules nothing)
+     * when the deadline is already due; the caller fires it directly.
+     */
+    boolean add(int id, long deadlineMs) {
+        // Round up: never fire before the deadline
+        long tick = (deadlineMs + tickMs - 1) / tickMs;
+        if (tick <= currentTick) {
+            return false;
+        }
+        place(new Node(id, tick, null));
+        size++;
+        return true;
+    }
+
+    /**
+     * Processes every tick up to nowMs, passing due ids to fire.
+     */
+    void advanceTo(long nowMs, IntConsumer fire) {
+        long target = nowMs / tickMs;
+
+        while (currentTick < target) {
+            currentTick++;
+
+            // Level 0 wrapped: pull the next block down from the level(s) above
+            if ((currentTick & MASK) == 0) {
+                cascade(1);
+            }
+
+            int slot = (int) (currentTick & MASK);
+            Node n = wheels[0][slot];
+            wheels[0][slot] = null;
+
+            for (; n != null; n = n.next) {
+                size--;
+                fire.accept(n.id);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    // =============================================
+    // HELPERS
+    // =============================================
+    private void place(Node node) {
+        long delta = node.tick - currentTick;
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+
+        int slot = (int) ((node.tick >>> (BITS * level)) & MASK);
+        node.next = wheels[level][slot];
+        wheels[level][slot] = node;
+    }
+
+    private void cascade(int level) {
+        if (level >= LEVELS) {
+            return;
+        }
+
+        int slot = (int) ((currentTick >>> (BITS * level)) & MASK);
+
+        // This level wrapped too: refill it from the one above first
+        if (slot == 0) {
+            cascade(level + 1);
+        }
+
+        Node n = wheels[level][slot];
+        wheels[level][slot] = null;
+
+        while (n != null) {
+            Node next = n.next;
+            place(n);
+            n = next;
+        }
+    }
+}
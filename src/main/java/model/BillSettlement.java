@@ -0,0 +1,146 @@
+package model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One bulk settle (mark paid) or reverse (mark unpaid) request: the bill
+ * ids read from pasted text or an uploaded statement, and the outcome of
+ * each once BillingDAO.settleBills has run.
+ *
+ * Ids may be separated by commas, semicolons, spaces or new lines; an "id"
+ * header is skipped. Repeated ids are applied once. Tokens that are not a
+ * positive number are counted as invalid (only the first MAX_INVALID are
+ * kept).
+ */
+public class BillSettlement implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAX_INVALID = 200;
+
+    public enum Outcome {
+        UPDATED,    // status changed
+        UNCHANGED,  // already had the requested status
+        NOT_FOUND,  // no such bill (or already archived)
+        FAILED      // its chunk rolled back
+    }
+
+    private final boolean paid;
+    private final Set<Integer> ids = new LinkedHashSet<>();
+    private final List<String> invalid = new ArrayList<>();
+    private int invalidCount;
+    private Map<Integer, Outcome> outcomes = Collections.emptyMap();
+    private final int[] counts = new int[Outcome.values().length];
+
+    public BillSettlement(boolean paid) {
+        this.paid = paid;
+    }
+
+    /**
+     * Reads ids from in until the end or until more than maxIds distinct
+     * ids are found; returns false in that case.
+     */
+    public boolean read(Reader in, int maxIds) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader b ? b : new BufferedReader(in);
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            for (String token : line.split("[,;\\s]+")) {
+                if (token.isEmpty() || "id".equalsIgnoreCase(token) || "bill_id".equalsIgnoreCase(token)) {
+                    continue;
+                }
+                int id = parseId(token);
+                if (id <= 0) {
+                    if (invalid.size() < MAX_INVALID) {
+                        invalid.add(token);
+                    }
+                    invalidCount++;
+                } else if (ids.add(id) && ids.size() > maxIds) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int parseId(String token) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public int count(Outcome outcome) {
+        return counts[outcome.ordinal()];
+    }
+
+    // First limit ids that did not end up UPDATED or UNCHANGED
+    public List<String> getProblems(int limit) {
+        List<String> problems = new ArrayList<>();
+        for (Map.Entry<Integer, Outcome> e : outcomes.entrySet()) {
+            if (problems.size() >= limit) {
+                break;
+            }
+            if (e.getValue() == Outcome.NOT_FOUND || e.getValue() == Outcome.FAILED) {
+                problems.add(e.getKey() + " " + e.getValue());
+            }
+        }
+        return problems;
+    }
+
+    // ===== Getters & Setters =====
+    public boolean isPaid() {
+        return paid;
+    }
+
+    public List<Integer> getIds() {
+        return new ArrayList<>(ids);
+    }
+
+    public List<String> getInvalid() {
+        return invalid;
+    }
+
+    public int getInvalidCount() {
+        return invalidCount;
+    }
+
+    public Map<Integer, Outcome> getOutcomes() {
+        return outcomes;
+    }
+
+    public void setOutcomes(Map<Integer, Outcome> outcomes) {
+        this.outcomes = outcomes;
+        Arrays.fill(counts, 0);
+        for (Outcome o : outcomes.values()) {
+            counts[o.ordinal()]++;
+        }
+    }
+
+    public int getUpdated() {
+        return count(Outcome.UPDATED);
+    }
+
+    public int getUnchanged() {
+        return count(Outcome.UNCHANGED);
+    }
+
+    public int getNotFound() {
+        return count(Outcome.NOT_FOUND);
+    }
+
+    public int getFailed() {
+        return count(Outcome.FAILED);
+    }
+}
@@ -0,0 +1,75 @@
+package model;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+
+// Admin billing list filters; null / 0 fields are not applied
+public class BillingFilter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Boolean paid;
+    private int serviceId;
+    private String customerName;  // prefix match
+    private Date billedFrom;      // inclusive
+    private Date billedTo;        // exclusive
+
+    // ===== Getters & Setters =====
+    public Boolean getPaid() {
+        return paid;
+    }
+
+    public void setPaid(Boolean paid) {
+        this.paid = paid;
+    }
+
+    public int getServiceId() {
+        return serviceId;
+    }
+
+    public void setServiceId(int serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public Date getBilledFrom() {
+        return billedFrom;
+    }
+
+    public void setBilledFrom(Date billedFrom) {
+        this.billedFrom = billedFrom;
+    }
+
+    public Date getBilledTo() {
+        return billedTo;
+    }
+
+    public void setBilledTo(Date billedTo) {
+        this.billedTo = billedTo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof BillingFilter f)) {
+            return false;
+        }
+        return serviceId == f.serviceId
+                && Objects.equals(paid, f.paid)
+                && Objects.equals(customerName, f.customerName)
+                && Objects.equals(billedFrom, f.billedFrom)
+                && Objects.equals(billedTo, f.billedTo);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(paid, serviceId, customerName, billedFrom, billedTo);
+    }
+}
@@ -0,0 +1,67 @@
+package model;
+
+import java.io.Serializable;
+import java.util.Date;
+
+// Headline admin figures, computed together at computedAt (DashboardStatsDAO)
+public class DashboardStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int paidBills;
+    private final int unpaidBills;
+    private final double outstandingAmount;
+    private final double revenueThisMonth;
+    private final int activeSubscriptions;
+    private final int customers;
+    private final Date computedAt;
+
+    public DashboardStats(int paidBills, int unpaidBills, double outstandingAmount, double revenueThisMonth,
+            int activeSubscriptions, int customers, Date computedAt) {
+        this.paidBills = paidBills;
+        this.unpaidBills = unpaidBills;
+        this.outstandingAmount = outstandingAmount;
+        this.revenueThisMonth = revenueThisMonth;
+        this.activeSubscriptions = activeSubscriptions;
+        this.customers = customers;
+        this.computedAt = computedAt;
+    }
+
+    // All zero, for when the figures could not be read
+    public static DashboardStats empty() {
+        return new DashboardStats(0, 0, 0, 0, 0, 0, new Date());
+    }
+
+    // ===== Getters =====
+    public int getPaidBills() {
+        return paidBills;
+    }
+
+    public int getUnpaidBills() {
+        return unpaidBills;
+    }
+
+    public int getTotalBills() {
+        return paidBills + unpaidBills;
+    }
+
+    public double getOutstandingAmount() {
+        return outstandingAmount;
+    }
+
+    public double getRevenueThisMonth() {
+        return revenueThisMonth;
+    }
+
+    public int getActiveSubscriptions() {
+        return activeSubscriptions;
+    }
+
+    public int getCustomers() {
+        return customers;
+    }
+
+    public Date getComputedAt() {
+        return computedAt;
+    }
+}
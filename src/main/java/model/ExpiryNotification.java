@@ -0,0 +1,81 @@
+package model;
+
+import java.util.Date;
+
+// Pre-expiry warning for one subscription at one offset (e.g. T-24h)
+public class ExpiryNotification {
+
+    private int subscriptionId;
+    private int customerId;
+    private String customerName;
+    private String customerEmail;
+    private String customerPhone;
+    private String serviceName;
+    private Date expiryDate;
+    private int offsetMinutes;
+
+    // ===== Getters & Setters =====
+    public int getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public void setSubscriptionId(int subscriptionId) {
+        this.subscriptionId = subscriptionId;
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(int customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public void setCustomerEmail(String customerEmail) {
+        this.customerEmail = customerEmail;
+    }
+
+    public String getCustomerPhone() {
+        return customerPhone;
+    }
+
+    public void setCustomerPhone(String customerPhone) {
+        this.customerPhone = customerPhone;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public Date getExpiryDate() {
+        return expiryDate;
+    }
+
+    public void setExpiryDate(Date expiryDate) {
+        this.expiryDate = expiryDate;
+    }
+
+    public int getOffsetMinutes() {
+        return offsetMinutes;
+    }
+
+    public void setOffsetMinutes(int offsetMinutes) {
+        this.offsetMinutes = offsetMinutes;
+    }
+}
@@ -0,0 +1,77 @@
+package model;
+
+import java.util.Date;
+
+// One run of a background job on one node (job_runs)
+public class JobRun {
+
+    private long id;
+    private String jobName;
+    private String owner;
+    private Date startedAt;
+    private Date finishedAt;
+    private String status;
+    private String detail;
+
+    // ===== Getters & Setters =====
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Date startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Date finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public void setDetail(String detail) {
+        this.detail = detail;
+    }
+
+    // Wall-clock duration, or -1 while still running
+    public long getDurationMs() {
+        return startedAt != null && finishedAt != null ? finishedAt.getTime() - startedAt.getTime() : -1;
+    }
+}
@@ -18,6 +18,9 @@ public class Subscription {
 
     private String status;
 
+    // Renewed for another term at expiry (subscriptions.auto_renew)
+    private boolean autoRenew;
+
     // NEW FIELD (Fixes "cannot find symbol setMonthlyPrice")
     private double monthlyPrice;
 
@@ -111,6 +114,14 @@ public class Subscription {
         this.monthlyPrice = monthlyPrice;
     }
 
+    public boolean isAutoRenew() {
+        return autoRenew;
+    }
+
+    public void setAutoRenew(boolean autoRenew) {
+        this.autoRenew = autoRenew;
+    }
+
     @Override
     public String toString() {
         return "Subscription{"
@@ -122,6 +133,7 @@ public class Subscription {
                 + ", purchaseDate=" + purchaseDate
                 + ", expiryDate=" + expiryDate
                 + ", status='" + status + '\''
+                + ", autoRenew=" + autoRenew
                 + ", monthlyPrice=" + monthlyPrice
                 + '}';
     }
@@ -0,0 +1,75 @@
+package model;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+
+// Admin subscription list filters; null / 0 fields are not applied
+public class SubscriptionFilter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String status;        // effective status: ACTIVE / EXPIRED / ...
+    private int serviceId;
+    private String customerName;  // prefix match
+    private Date purchasedFrom;   // inclusive
+    private Date purchasedTo;     // exclusive
+
+    // ===== Getters & Setters =====
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getServiceId() {
+        return serviceId;
+    }
+
+    public void setServiceId(int serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public Date getPurchasedFrom() {
+        return purchasedFrom;
+    }
+
+    public void setPurchasedFrom(Date purchasedFrom) {
+        this.purchasedFrom = purchasedFrom;
+    }
+
+    public Date getPurchasedTo() {
+        return purchasedTo;
+    }
+
+    public void setPurchasedTo(Date purchasedTo) {
+        this.purchasedTo = purchasedTo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SubscriptionFilter f)) {
+            return false;
+        }
+        return serviceId == f.serviceId
+                && Objects.equals(status, f.status)
+                && Objects.equals(customerName, f.customerName)
+                && Objects.equals(purchasedFrom, f.purchasedFrom)
+                && Objects.equals(purchasedTo, f.purchasedTo);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, serviceId, customerName, purchasedFrom, purchasedTo);
+    }
+}
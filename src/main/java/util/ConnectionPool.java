@@ -0,0 +1,403 @@
+package util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small bounded JDBC connection pool.
+ *
+ * Physical connections are opened through DriverManager and handed out
+ * wrapped in a proxy whose close() returns the connection to the pool
+ * instead of closing the socket. The pool keeps at least minSize idle
+ * connections open, never exceeds maxSize, validates connections that sat
+ * idle for more than validationIdleMs when they are borrowed (a connection
+ * returned moments ago is handed out without a server round trip) and
+ * evicts connections that have been idle for too long.
+ * Each physical connection carries its own StatementCache.
+ *
+ * Every borrow is timed and attributed to the DAO method that made it
+ * (see DBMetrics); a borrow held longer than leakDetectionMs is logged
+ * together with the stack that borrowed it. That stack is captured on
+ * every borrow, so leak detection is off (0) unless configured.
+ */
+public class ConnectionPool {
+
+    private final String name;
+    private final String url;
+    private final Properties info;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMs;
+    private final long idleTimeoutMs;
+    private final int validationTimeoutSec;
+    private final long validationIdleMs;
+    private final int statementCacheSize;
+    private final long leakDetectionMs;
+
+    // Permits = connections that may still be borrowed (idle or not yet opened)
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final Set<LeaseHandler> leases = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    public ConnectionPool(String name, String url, Properties info, int minSize, int maxSize,
+            long acquireTimeoutMs, long idleTimeoutMs, int validationTimeoutSec, long validationIdleMs,
+            int statementCacheSize, long leakDetectionMs) {
+
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+
+        this.name = name;
+        this.url = url;
+        this.info = info;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.validationTimeoutSec = validationTimeoutSec;
+        this.validationIdleMs = validationIdleMs;
+        this.statementCacheSize = statementCacheSize;
+        this.leakDetectionMs = leakDetectionMs;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+
+        long period = Math.max(1000L, idleTimeoutMs / 2);
+        evictor.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+
+        if (leakDetectionMs > 0) {
+            long leakPeriod = Math.max(1000L, leakDetectionMs / 2);
+            evictor.scheduleWithFixedDelay(this::detectLeaks, leakPeriod, leakPeriod, TimeUnit.MILLISECONDS);
+        }
+
+        fillToMinimum();
+    }
+
+    // =============================================
+    // BORROW
+    // =============================================
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                DBMetrics.recordBorrowTimeout();
+                throw new SQLTimeoutException("Timed out after " + acquireTimeoutMs
+                        + " ms waiting for a database connection (max=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledEntry entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (isUsable(entry)) {
+                    break;
+                }
+                destroy(entry);
+            }
+            if (entry == null) {
+                entry = openEntry();
+            }
+
+            DBMetrics.recordBorrow((System.nanoTime() - start) / 1_000_000.0);
+            return entry.lease();
+
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // =============================================
+    // RETURN (called from the proxy's close())
+    // =============================================
+    void release(PooledEntry entry) {
+        try {
+            if (closed || !entry.reset()) {
+                destroy(entry);
+            } else {
+                entry.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(entry);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void shutdown() {
+        closed = true;
+        evictor.shutdownNow();
+
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+    }
+
+    public int getTotalConnections() {
+        return total.get();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    public int getActiveConnections() {
+        return Math.max(0, total.get() - idle.size());
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    // Threads currently waiting for a connection
+    public int getPendingRequests() {
+        return permits.getQueueLength();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // =============================================
+    // HELPERS
+    // =============================================
+    private PooledEntry openEntry() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, info);
+        total.incrementAndGet();
+        return new PooledEntry(physical);
+    }
+
+    // Pings the server only when the connection has been idle long enough to have gone stale
+    private boolean isUsable(PooledEntry entry) {
+        try {
+            if (entry.physical.isClosed()) {
+                return false;
+            }
+            return System.currentTimeMillis() - entry.lastUsed < validationIdleMs
+                    || entry.physical.isValid(validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void destroy(PooledEntry entry) {
+        total.decrementAndGet();
+        if (entry.statements != null) {
+            entry.statements.clear();
+        }
+        try {
+            entry.physical.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    // Evict long-idle connections above minSize, then top back up to minSize
+    private void maintain() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+
+        Iterator<PooledEntry> it = idle.descendingIterator();
+        while (it.hasNext() && total.get() > minSize) {
+            PooledEntry entry = it.next();
+            if (entry.lastUsed < cutoff && idle.remove(entry)) {
+                destroy(entry);
+            }
+        }
+
+        fillToMinimum();
+    }
+
+    private void detectLeaks() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(leakDetectionMs);
+
+        for (LeaseHandler lease : leases) {
+            if (!lease.leakReported && lease.stats.borrowedAt < cutoff) {
+                lease.leakReported = true;
+                DBMetrics.recordLeak();
+
+                System.err.println("[ConnectionPool:" + name + "] Connection held for more than "
+                        + leakDetectionMs + " ms by " + lease.stats.caller + ", possible leak. Borrowed at:");
+                if (lease.borrowStack != null) {
+                    lease.borrowStack.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed && total.get() < minSize) {
+            try {
+                PooledEntry entry = openEntry();
+                idle.offerLast(entry);
+            } catch (SQLException e) {
+                System.err.println("Connection pool could not open connection: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    // =============================================
+    // POOLED CONNECTION
+    // =============================================
+    class PooledEntry {
+
+        final Connection physical;
+        final StatementCache statements;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        PooledEntry(Connection physical) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize)
+                    : null;
+        }
+
+        Connection lease() {
+            LeaseHandler handler = new LeaseHandler(this);
+            leases.add(handler);
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    handler);
+        }
+
+        // Undo anything a DAO may have left behind (open transaction, read-only flag)
+        boolean reset() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (statements != null) {
+                    statements.releaseAll();
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                if (physical.isReadOnly()) {
+                    physical.setReadOnly(false);
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * One handler per borrow, so a stale reference kept after close()
+     * cannot reach a connection that has since been lent to someone else.
+     */
+    private class LeaseHandler implements InvocationHandler {
+
+        private final PooledEntry entry;
+        private boolean returned;
+
+        // Metrics / leak detection
+        final LeaseStats stats = new LeaseStats();
+        final Throwable borrowStack = leakDetectionMs > 0 ? new Throwable("Connection borrowed") : null;
+        volatile boolean leakReported;
+
+        LeaseHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            switch (name) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        leases.remove(this);
+                        stats.finish();
+                        release(entry);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || entry.physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled[" + entry.physical + "]";
+                }
+                case "prepareStatement" -> {
+                    // Only the plain prepareStatement(sql) form is cached
+                    if (!returned && entry.statements != null && args.length == 1) {
+                        Statement cached = entry.statements.prepare((String) args[0], (Connection) proxy);
+                        return meter(cached, method, proxy, args);
+                    }
+                }
+                case "unwrap" -> {
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                }
+                default -> {
+                }
+            }
+
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            Object result;
+            try {
+                result = method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            if (result instanceof Statement stmt) {
+                return meter(stmt, method, proxy, args);
+            }
+            return result;
+        }
+
+        private Statement meter(Statement stmt, Method method, Object proxy, Object[] args) {
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            return MeteredStatement.wrap(stmt, method.getReturnType(), (Connection) proxy, stats, sql, stats.caller);
+        }
+    }
+}
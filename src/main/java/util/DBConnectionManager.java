@@ -3,9 +3,11 @@ package util;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
 
 public class DBConnectionManager {
 
@@ -13,6 +15,26 @@ public class DBConnectionManager {
     private static String user;
     private static String password;
 
+    // Container-managed DataSource (used when db.jndi is bound)
+    private static DataSource dataSource;
+
+    // Built-in pool (used otherwise)
+    private static ConnectionPool pool;
+
+    // Optional read replica (db.replica.url)
+    private static ConnectionPool replicaPool;
+    private static ReplicaLagMonitor replicaMonitor;
+    private static long readYourWritesMs;
+
+    private static boolean migrationsEnabled;
+
+    // db.properties, for settings read by other components (background jobs etc.)
+    private static final Properties config = new Properties();
+
+    // Per-request routing state, set by RoleFilter
+    private static final ThreadLocal<Boolean> PIN_PRIMARY = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> WROTE = new ThreadLocal<>();
+
     static {
         try (InputStream input = DBConnectionManager.class.getClassLoader()
                 .getResourceAsStream("db.properties")) {
@@ -23,12 +45,42 @@ public class DBConnectionManager {
 
             Properties prop = new Properties();
             prop.load(input);
+            config.putAll(prop);
 
             url = prop.getProperty("db.url");
             user = prop.getProperty("db.user");
             password = prop.getProperty("db.password");
 
-            Class.forName("com.mysql.cj.jdbc.Driver");
+            migrationsEnabled = Boolean.parseBoolean(prop.getProperty("db.migrations.enabled", "true").trim());
+
+            SlowQueryLog.configure(
+                    intProp(prop, "db.slowQuery.thresholdMs", 200),
+                    prop.getProperty("db.slowQuery.file", "%h/telecom-slow-query.%g.log"),
+                    intProp(prop, "db.slowQuery.fileSizeBytes", 10 * 1024 * 1024),
+                    intProp(prop, "db.slowQuery.files", 5));
+
+            dataSource = lookupDataSource(prop.getProperty("db.jndi"));
+
+            if (dataSource == null) {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+                pool = buildPool(prop, "primary", url, user, password);
+            }
+
+            String replicaUrl = prop.getProperty("db.replica.url");
+            if (replicaUrl != null && !replicaUrl.isBlank()) {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+
+                replicaPool = buildPool(prop, "replica", replicaUrl.trim(),
+                        prop.getProperty("db.replica.user", user),
+                        prop.getProperty("db.replica.password", password));
+
+                replicaMonitor = new ReplicaLagMonitor(replicaPool,
+                        intProp(prop, "db.replica.maxLagSec", 5),
+                        intProp(prop, "db.replica.lagCheckMs", 5000),
+                        Boolean.parseBoolean(prop.getProperty("db.replica.allowStandalone", "false").trim()));
+
+                readYourWritesMs = intProp(prop, "db.replica.readYourWritesMs", 10000);
+            }
 
         } catch (IOException | ClassNotFoundException e) {
             e.printStackTrace();
@@ -37,6 +89,177 @@ public class DBConnectionManager {
     }
 
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(url, user, password);
+        // Inside UnitOfWork.inTransaction(): join its connection
+        Connection bound = UnitOfWork.currentConnection();
+        if (bound != null) {
+            return bound;
+        }
+        return borrow();
+    }
+
+    // A connection of our own, ignoring any unit of work
+    static Connection borrow() throws SQLException {
+        if (dataSource != null) {
+            return MeteredStatement.wrapConnection(dataSource.getConnection());
+        }
+        return pool.getConnection();
+    }
+
+    /**
+     * Connection for listing/report queries that tolerate slight staleness.
+     * Goes to the replica when one is configured and caught up, otherwise
+     * (or when this request must read its own writes) to the primary.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        // A unit of work reads its own uncommitted writes
+        Connection bound = UnitOfWork.currentConnection();
+        if (bound != null) {
+            return bound;
+        }
+
+        if (replicaPool == null || Boolean.TRUE.equals(PIN_PRIMARY.get()) || !replicaMonitor.isHealthy()) {
+            return getConnection();
+        }
+
+        try {
+            Connection conn = replicaPool.getConnection();
+            conn.setReadOnly(true);
+            return conn;
+        } catch (SQLException e) {
+            System.err.println("Replica unavailable, reading from primary: " + e.getMessage());
+            return getConnection();
+        }
+    }
+
+    // =============================================
+    // READ-YOUR-WRITES
+    // =============================================
+    // Pin this thread's reads to the primary (e.g. the session wrote recently)
+    public static void setReadYourWrites(boolean pin) {
+        if (pin) {
+            PIN_PRIMARY.set(Boolean.TRUE);
+        } else {
+            PIN_PRIMARY.remove();
+        }
+    }
+
+    // Whether this thread's reads are currently pinned to the primary
+    public static boolean isReadYourWrites() {
+        return Boolean.TRUE.equals(PIN_PRIMARY.get());
+    }
+
+    // Called by DAOs after a successful write; later reads in this request go to the primary
+    public static void recordWrite() {
+        WROTE.set(Boolean.TRUE);
+        PIN_PRIMARY.set(Boolean.TRUE);
+    }
+
+    // Clears per-request state; returns true if the request wrote anything
+    public static boolean endRequest() {
+        boolean wrote = Boolean.TRUE.equals(WROTE.get());
+        WROTE.remove();
+        PIN_PRIMARY.remove();
+        return wrote;
+    }
+
+    // How long after a write a session keeps reading from the primary
+    public static long getReadYourWritesMs() {
+        return readYourWritesMs;
+    }
+
+    // Whether DBContextListener applies db/migration scripts on startup
+    public static boolean isMigrationsEnabled() {
+        return migrationsEnabled;
+    }
+
+    // Integer setting from db.properties, or defaultValue when missing/invalid
+    public static int getIntProperty(String key, int defaultValue) {
+        return intProp(config, key, defaultValue);
+    }
+
+    public static String getProperty(String key, String defaultValue) {
+        return config.getProperty(key, defaultValue);
+    }
+
+    // Built-in pool, or null when a container DataSource is in use
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    // Replica pool, or null when no replica is configured
+    public static ConnectionPool getReplicaPool() {
+        return replicaPool;
+    }
+
+    public static void shutdown() {
+        if (replicaMonitor != null) {
+            replicaMonitor.shutdown();
+        }
+        if (replicaPool != null) {
+            replicaPool.shutdown();
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // =============================================
+    // HELPERS
+    // =============================================
+    private static ConnectionPool buildPool(Properties prop, String name,
+            String jdbcUrl, String jdbcUser, String jdbcPassword) {
+        Properties info = new Properties();
+        info.setProperty("user", jdbcUser);
+        info.setProperty("password", jdbcPassword != null ? jdbcPassword : "");
+
+        // Server-side prepares: MySQL parses each cached statement once per connection
+        info.setProperty("useServerPrepStmts", prop.getProperty("db.useServerPrepStmts", "true"));
+
+        // JdbcTemplate.cursor(): a statement with fetchSize > 0 reads through a server-side cursor
+        info.setProperty("useCursorFetch", "true");
+
+        // JdbcTemplate.batch(): multi-row INSERTs instead of one round trip per row
+        info.setProperty("rewriteBatchedStatements", prop.getProperty("db.rewriteBatchedStatements", "true"));
+
+        return new ConnectionPool(name, jdbcUrl, info,
+                intProp(prop, "db.pool.minSize", 2),
+                intProp(prop, "db.pool.maxSize", 20),
+                intProp(prop, "db.pool.acquireTimeoutMs", 5000),
+                intProp(prop, "db.pool.idleTimeoutMs", 300000),
+                intProp(prop, "db.pool.validationTimeoutSec", 2),
+                intProp(prop, "db.pool.validationIdleMs", 5000),
+                intProp(prop, "db.pool.statementCacheSize", 32),
+                intProp(prop, "db.pool.leakDetectionMs", 0));
+    }
+
+    private static DataSource lookupDataSource(String jndiName) {
+        if (jndiName == null || jndiName.isBlank()) {
+            return null;
+        }
+
+        try {
+            Object bound = new InitialContext().lookup(jndiName.trim());
+            if (bound instanceof DataSource ds) {
+                System.out.println("[DBConnectionManager] Using container DataSource: " + jndiName);
+                return ds;
+            }
+        } catch (NamingException e) {
+            System.out.println("[DBConnectionManager] No DataSource bound at " + jndiName
+                    + ", falling back to built-in pool");
+        }
+        return null;
+    }
+
+    private static int intProp(Properties prop, String key, int defaultValue) {
+        String value = prop.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value + " (using " + defaultValue + ")");
+            return defaultValue;
+        }
     }
 }
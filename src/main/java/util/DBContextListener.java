@@ -0,0 +1,35 @@
+package util;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+
+/**
+ * Applies pending schema migrations on startup and closes pooled database
+ * connections when the application is undeployed.
+ *
+ * Registered in web.xml ahead of jobs.JobsListener, so the schema is
+ * current before any job runs and the pool outlives the jobs on undeploy.
+ * A failed migration fails the deployment, so no job starts against an
+ * out-of-date schema.
+ */
+public class DBContextListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        if (DBConnectionManager.isMigrationsEnabled()) {
+            try {
+                MigrationRunner.migrate();
+            } catch (RuntimeException e) {
+                System.err.println("[DBContextListener] " + e.getMessage() + "; deployment aborted");
+                // contextDestroyed is not called for a listener that failed to initialize
+                DBConnectionManager.shutdown();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        DBConnectionManager.shutdown();
+    }
+}
@@ -0,0 +1,180 @@
+package util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide database metrics: pool gauges, borrow times, per-DAO-method
+ * execution time and row counts, and leaked connections.
+ */
+public final class DBMetrics {
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private static final Histogram BORROW_MS = new Histogram(Histogram.MILLIS_BUCKETS);
+    private static final LongAdder BORROW_TIMEOUTS = new LongAdder();
+    private static final LongAdder LEAKS = new LongAdder();
+
+    private static final Map<String, MethodStats> METHODS = new ConcurrentHashMap<>();
+
+    // Per normalized SQL; capped so ad-hoc SQL cannot grow it without bound
+    private static final int MAX_STATEMENTS = 500;
+    private static final Map<String, Histogram> STATEMENTS = new ConcurrentHashMap<>();
+
+    private DBMetrics() {
+    }
+
+    // =============================================
+    // RECORDING
+    // =============================================
+    static void recordBorrow(double millis) {
+        BORROW_MS.record(millis);
+    }
+
+    static void recordBorrowTimeout() {
+        BORROW_TIMEOUTS.increment();
+    }
+
+    static void recordLeak() {
+        LEAKS.increment();
+    }
+
+    static void recordMethod(String method, double millis, long rows) {
+        MethodStats stats = METHODS.computeIfAbsent(method, k -> new MethodStats());
+        stats.time.record(millis);
+        stats.rows.record(rows);
+    }
+
+    static void recordStatement(String sql, double millis) {
+        Histogram h = STATEMENTS.get(sql);
+        if (h == null) {
+            if (STATEMENTS.size() >= MAX_STATEMENTS) {
+                return;
+            }
+            h = STATEMENTS.computeIfAbsent(sql, k -> new Histogram(Histogram.MILLIS_BUCKETS));
+        }
+        h.record(millis);
+    }
+
+    /**
+     * Name of the DAO method on the current stack, e.g. "BillingDAO.getAllBills",
+     * or "other" for connections borrowed outside the dao package.
+     */
+    static String callerMethod() {
+        return WALKER.walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith("dao."))
+                .findFirst()
+                .map(f -> f.getClassName().substring(4) + "." + f.getMethodName())
+                .orElse("other"));
+    }
+
+    // =============================================
+    // READING
+    // =============================================
+    public static Histogram getBorrowTimes() {
+        return BORROW_MS;
+    }
+
+    public static long getBorrowTimeouts() {
+        return BORROW_TIMEOUTS.sum();
+    }
+
+    public static long getLeaks() {
+        return LEAKS.sum();
+    }
+
+    // Sorted by method name
+    public static Map<String, MethodStats> getMethodStats() {
+        return new TreeMap<>(METHODS);
+    }
+
+    // Execution time per normalized SQL, sorted by SQL text
+    public static Map<String, Histogram> getStatementTimes() {
+        return new TreeMap<>(STATEMENTS);
+    }
+
+    /**
+     * All metrics in Prometheus text exposition format.
+     */
+    public static String toPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+
+        out.append("# TYPE db_pool_connections gauge\n");
+        writePool(out, "primary", DBConnectionManager.getPool());
+        writePool(out, "replica", DBConnectionManager.getReplicaPool());
+
+        out.append("# TYPE db_pool_borrow_ms histogram\n");
+        BORROW_MS.writePrometheus(out, "db_pool_borrow_ms", "");
+
+        out.append("# TYPE db_pool_borrow_timeouts_total counter\n");
+        out.append("db_pool_borrow_timeouts_total ").append(getBorrowTimeouts()).append('\n');
+
+        out.append("# TYPE db_pool_leaks_total counter\n");
+        out.append("db_pool_leaks_total ").append(getLeaks()).append('\n');
+
+        out.append("# TYPE db_statement_cache_total counter\n");
+        out.append("db_statement_cache_total{result=\"hit\"} ").append(StatementCache.getHits()).append('\n');
+        out.append("db_statement_cache_total{result=\"miss\"} ").append(StatementCache.getMisses()).append('\n');
+        out.append("db_statement_cache_total{result=\"eviction\"} ").append(StatementCache.getEvictions()).append('\n');
+
+        Map<String, MethodStats> methods = getMethodStats();
+
+        out.append("# TYPE dao_method_ms histogram\n");
+        for (Map.Entry<String, MethodStats> e : methods.entrySet()) {
+            e.getValue().time.writePrometheus(out, "dao_method_ms", "method=\"" + e.getKey() + "\",");
+        }
+
+        out.append("# TYPE dao_method_rows histogram\n");
+        for (Map.Entry<String, MethodStats> e : methods.entrySet()) {
+            e.getValue().rows.writePrometheus(out, "dao_method_rows", "method=\"" + e.getKey() + "\",");
+        }
+
+        out.append("# TYPE db_statement_ms summary\n");
+        for (Map.Entry<String, Histogram> e : getStatementTimes().entrySet()) {
+            String sql = "sql=\"" + escapeLabel(e.getKey()) + "\"";
+            Histogram h = e.getValue();
+            for (double q : new double[]{0.5, 0.95, 0.99}) {
+                out.append("db_statement_ms{").append(sql).append(",quantile=\"").append(q).append("\"} ")
+                        .append(Histogram.format(h.percentile(q))).append('\n');
+            }
+            out.append("db_statement_ms_sum{").append(sql).append("} ").append(Histogram.format(h.getSum())).append('\n');
+            out.append("db_statement_ms_count{").append(sql).append("} ").append(h.getCount()).append('\n');
+        }
+
+        return out.toString();
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static void writePool(StringBuilder out, String name, ConnectionPool pool) {
+        if (pool == null) {
+            return;
+        }
+        out.append("db_pool_connections{pool=\"").append(name).append("\",state=\"active\"} ")
+                .append(pool.getActiveConnections()).append('\n');
+        out.append("db_pool_connections{pool=\"").append(name).append("\",state=\"idle\"} ")
+                .append(pool.getIdleConnections()).append('\n');
+        out.append("db_pool_connections{pool=\"").append(name).append("\",state=\"pending\"} ")
+                .append(pool.getPendingRequests()).append('\n');
+        out.append("db_pool_connections{pool=\"").append(name).append("\",state=\"max\"} ")
+                .append(pool.getMaxSize()).append('\n');
+    }
+
+    public static final class MethodStats {
+
+        private final Histogram time = new Histogram(Histogram.MILLIS_BUCKETS);
+        private final Histogram rows = new Histogram(Histogram.ROW_BUCKETS);
+
+        public Histogram getTime() {
+            return time;
+        }
+
+        public Histogram getRows() {
+            return rows;
+        }
+    }
+}
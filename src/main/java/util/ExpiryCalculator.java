@@ -0,0 +1,54 @@
+package util;
+
+import model.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Subscription expiry from a start time and the service's duration
+ * (duration_value + duration_unit). Shared by the customer purchase page
+ * and the admin bulk import so both apply the same rules.
+ *
+ * Units are the services.duration_unit ENUM values (MINUTES, HOUR, DAY,
+ * WEEK, MONTH); MINUTE and YEAR are accepted as well.
+ */
+public final class ExpiryCalculator {
+
+    private ExpiryCalculator() {
+    }
+
+    // Throws IllegalArgumentException for a missing or unknown duration
+    public static LocalDateTime calculateExpiry(LocalDateTime start, Service service) {
+        if (service.getDurationValue() == null || service.getDurationUnit() == null) {
+            throw new IllegalArgumentException("Service " + service.getId() + " has no duration");
+        }
+
+        int duration = service.getDurationValue();
+        String unit = service.getDurationUnit().trim().toUpperCase(Locale.ROOT);
+
+        switch (unit) {
+            case "MINUTES", "MINUTE" -> {
+                return start.plus(duration, ChronoUnit.MINUTES);
+            }
+            case "HOUR" -> {
+                return start.plus(duration, ChronoUnit.HOURS);
+            }
+            case "DAY" -> {
+                return start.plus(duration, ChronoUnit.DAYS);
+            }
+            case "WEEK" -> {
+                return start.plus(duration * 7L, ChronoUnit.DAYS); // alternative to ChronoUnit.WEEKS
+            }
+            case "MONTH" -> {
+                return start.plus(duration, ChronoUnit.MONTHS);
+            }
+            case "YEAR" -> {
+                return start.plus(duration, ChronoUnit.YEARS);
+            }
+            default ->
+                throw new IllegalArgumentException("Unknown duration unit: " + unit);
+        }
+    }
+}
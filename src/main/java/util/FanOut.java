@@ -0,0 +1,140 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs independent DAO calls concurrently on virtual threads, so a page
+ * waits for its slowest query instead of the sum of them.
+ *
+ * <pre>
+ * try (FanOut fan = FanOut.within(5000)) {
+ *     FanOut.Task&lt;Integer&gt; paid = fan.fork(() -&gt; billingDAO.countPaidBills());
+ *     FanOut.Task&lt;Integer&gt; unpaid = fan.fork(() -&gt; billingDAO.countUnpaidBills());
+ *     fan.join();
+ *     paidCount = paid.get(0);
+ *     unpaidCount = unpaid.get(0);
+ * }
+ * </pre>
+ *
+ * All tasks share one deadline. The first task to fail, or the deadline
+ * passing, cancels the ones still running; their get() then returns the
+ * fallback, matching the DAOs' own return-a-default error handling.
+ *
+ * The caller's read-your-writes pin and JFR customer id are carried into
+ * each task. Writes made inside a task are not reported back to the
+ * request, so only use this for reads.
+ */
+public final class FanOut implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+    private final List<Task<?>> tasks = new ArrayList<>();
+    private final long deadline;
+
+    private final boolean pinPrimary = DBConnectionManager.isReadYourWrites();
+    private final int customerId = JfrEvents.currentCustomerId();
+
+    private FanOut(long timeoutMs) {
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    // Scope whose tasks must all finish within timeoutMs of now
+    public static FanOut within(long timeoutMs) {
+        return new FanOut(timeoutMs);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Task<T> fork(Callable<T> call) {
+        Future<Object> future = completion.submit(() -> {
+            DBConnectionManager.setReadYourWrites(pinPrimary);
+            JfrEvents.setCustomerId(customerId);
+            try {
+                return call.call();
+            } finally {
+                DBConnectionManager.endRequest();
+                JfrEvents.clearCustomerId();
+            }
+        });
+
+        Task<T> task = new Task<>((Future<T>) (Future<?>) future);
+        tasks.add(task);
+        return task;
+    }
+
+    /**
+     * Waits for every forked task. Returns false (after cancelling the rest)
+     * if one failed or the deadline passed.
+     */
+    public boolean join() {
+        for (int remaining = tasks.size(); remaining > 0; remaining--) {
+            try {
+                long wait = deadline - System.nanoTime();
+                Future<Object> done = wait > 0 ? completion.poll(wait, TimeUnit.NANOSECONDS) : null;
+
+                if (done == null) {
+                    System.err.println("[FanOut] Deadline passed with " + remaining + " task(s) still running");
+                    cancelAll();
+                    return false;
+                }
+                done.get();
+
+            } catch (ExecutionException e) {
+                System.err.println("[FanOut] Task failed: " + e.getCause());
+                cancelAll();
+                return false;
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelAll();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void cancelAll() {
+        for (Task<?> task : tasks) {
+            task.future.cancel(true);
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+        executor.shutdownNow();
+    }
+
+    public static final class Task<T> {
+
+        private final Future<T> future;
+
+        private Task(Future<T> future) {
+            this.future = future;
+        }
+
+        // Result, or fallback if the task failed, was cancelled or has not finished
+        public T get(T fallback) {
+            if (!future.isDone()) {
+                return fallback;
+            }
+            try {
+                return future.get();
+            } catch (ExecutionException | CancellationException e) {
+                return fallback;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return fallback;
+            }
+        }
+    }
+}
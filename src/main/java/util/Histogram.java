@@ -0,0 +1,99 @@
+package util;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket histogram, cheap enough to record on every query.
+ * Buckets are cumulative only when exported, in Prometheus style.
+ */
+public class Histogram {
+
+    public static final double[] MILLIS_BUCKETS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+    public static final double[] ROW_BUCKETS = {0, 1, 5, 10, 50, 100, 500, 1000, 5000, 10000, 50000};
+
+    private final double[] bounds;
+    private final LongAdder[] counts;   // counts[bounds.length] = +Inf
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder sum = new DoubleAdder();
+
+    public Histogram(double[] bounds) {
+        this.bounds = bounds;
+        this.counts = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(double value) {
+        int i = 0;
+        while (i < bounds.length && value > bounds[i]) {
+            i++;
+        }
+        counts[i].increment();
+        count.increment();
+        sum.add(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : getSum() / n;
+    }
+
+    /**
+     * Approximate percentile (0..1): the upper bound of the bucket holding
+     * that rank. Values above the last bound report the last bound.
+     */
+    public double percentile(double p) {
+        long n = getCount();
+        if (n == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(p * n);
+        long seen = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            seen += counts[i].sum();
+            if (seen >= rank) {
+                return bounds[i];
+            }
+        }
+        return bounds[bounds.length - 1];
+    }
+
+    /**
+     * Appends this histogram in Prometheus text format. labels is either
+     * empty or a comma-terminated list such as method="BillingDAO.getAllBills",
+     */
+    public void writePrometheus(StringBuilder out, String name, String labels) {
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += counts[i].sum();
+            out.append(name).append("_bucket{").append(labels)
+                    .append("le=\"").append(format(bounds[i])).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        cumulative += counts[bounds.length].sum();
+
+        String plain = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+        out.append(name).append("_bucket{").append(labels).append("le=\"+Inf\"} ").append(cumulative).append('\n');
+        out.append(name).append("_sum").append(plain).append(' ').append(format(getSum())).append('\n');
+        out.append(name).append("_count").append(plain).append(' ').append(cumulative).append('\n');
+    }
+
+    static String format(double value) {
+        if (value == Math.rint(value)) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
@@ -0,0 +1,380 @@
+package util;
+
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.jdbc.JdbcConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Minimal JDBC helper shared by the DAOs: borrows a connection, binds
+ * parameters, runs the statement and maps rows, closing everything.
+ *
+ * Row mapping is two-step. A RowMapperFactory looks up the column
+ * indexes it needs once per ResultSet and returns a RowMapper that reads
+ * every row by index. Columns missing from the query resolve to index 0,
+ * so optional columns are checked with a plain int test rather than an
+ * exception.
+ *
+ * Methods throw SQLException; DAOs keep their own catch-and-log handling.
+ */
+public class JdbcTemplate {
+
+    /** Writes and reads that must see the latest data. */
+    public static final JdbcTemplate PRIMARY = new JdbcTemplate(DBConnectionManager::getConnection);
+
+    /** Listing/report reads; may be served by the replica. */
+    public static final JdbcTemplate READ = new JdbcTemplate(DBConnectionManager::getReadConnection);
+
+    @FunctionalInterface
+    public interface ConnectionSource {
+
+        Connection get() throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+
+        T mapRow(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface RowMapperFactory<T> {
+
+        RowMapper<T> bind(Columns columns) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface RowCallback<T> {
+
+        void accept(T row) throws SQLException;
+    }
+
+    private final ConnectionSource source;
+    private volatile ZoneId parameterZone;
+
+    private static volatile boolean cursorFallbackLogged;
+
+    public JdbcTemplate(ConnectionSource source) {
+        this.source = source;
+    }
+
+    // =============================================
+    // QUERIES
+    // =============================================
+    public <T> List<T> query(String sql, RowMapperFactory<T> factory, Object... params) throws SQLException {
+        List<T> list = new ArrayList<>();
+        run(sql, factory, list::add, 0, params);
+        return list;
+    }
+
+    // First row, or null when there is none
+    public <T> T queryOne(String sql, RowMapperFactory<T> factory, Object... params) throws SQLException {
+        try (Connection conn = source.get(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            bind(stmt, params);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? factory.bind(new Columns(rs)).mapRow(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Maps rows one at a time into callback without building a list.
+     * The MySQL driver is asked to stream rows instead of buffering the
+     * whole result, so the connection is held until the last row and the
+     * callback must not run other statements on the same connection.
+     */
+    public <T> void stream(String sql, RowMapperFactory<T> factory, RowCallback<T> callback, Object... params)
+            throws SQLException {
+        run(sql, factory, callback, Integer.MIN_VALUE, params);
+    }
+
+    /**
+     * Maps rows into callback through a MySQL server-side cursor, fetchSize
+     * rows per round trip (needs useCursorFetch, which DBConnectionManager
+     * sets on its pools). The server materializes the result into a
+     * temporary table up front, so unlike stream() a slow consumer (an
+     * HTTP download) does not keep the statement's read view open, and the
+     * connection can still run other statements. Client memory is one
+     * fetch regardless of the number of rows.
+     *
+     * On a connection without useCursorFetch (a container DataSource not
+     * configured for it) Connector/J would ignore fetchSize and buffer the
+     * whole result, so this falls back to stream() instead.
+     */
+    public <T> void cursor(String sql, int fetchSize, RowMapperFactory<T> factory, RowCallback<T> callback,
+            Object... params) throws SQLException {
+        run(sql, factory, callback, Math.max(1, fetchSize), params);
+    }
+
+    // fetchSize 0: buffered; Integer.MIN_VALUE: Connector/J row-by-row streaming; > 0: cursor
+    private <T> void run(String sql, RowMapperFactory<T> factory, RowCallback<T> callback,
+            int fetchSize, Object... params) throws SQLException {
+
+        try (Connection conn = source.get(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            if (fetchSize > 0 && !cursorFetchEnabled(conn)) {
+                if (!cursorFallbackLogged) {
+                    cursorFallbackLogged = true;
+                    System.err.println("[JdbcTemplate] Connection has no useCursorFetch=true; "
+                            + "cursor() reads are streamed instead");
+                }
+                fetchSize = Integer.MIN_VALUE;
+            }
+
+            bind(stmt, params);
+            if (fetchSize != 0) {
+                stmt.setFetchSize(fetchSize);
+            }
+
+            // A cached statement gets its default fetch size back on close (StatementCache)
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return;
+                }
+
+                RowMapper<T> mapper = factory.bind(new Columns(rs));
+                do {
+                    callback.accept(mapper.mapRow(rs));
+                } while (rs.next());
+            }
+        }
+    }
+
+    // Single int (COUNT(*) etc.); 0 when there is no row
+    public int queryInt(String sql, Object... params) throws SQLException {
+        try (Connection conn = source.get(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            bind(stmt, params);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    // =============================================
+    // UPDATES
+    // =============================================
+    public int update(String sql, Object... params) throws SQLException {
+        try (Connection conn = source.get(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            bind(stmt, params);
+            int rows = stmt.executeUpdate();
+
+            if (rows > 0) {
+                DBConnectionManager.recordWrite();
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Runs sql once per parameter row as a JDBC batch on one connection.
+     * With rewriteBatchedStatements the driver sends multi-row INSERTs in
+     * a few round trips. Returns the total rows affected.
+     */
+    public int batch(String sql, List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        try (Connection conn = source.get(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (Object[] params : rows) {
+                bind(stmt, params);
+                stmt.addBatch();
+            }
+
+            int total = 0;
+            for (int n : stmt.executeBatch()) {
+                // SUCCESS_NO_INFO (-2) from rewritten batches: count the row
+                total += n == Statement.SUCCESS_NO_INFO ? 1 : Math.max(n, 0);
+            }
+
+            if (total > 0) {
+                DBConnectionManager.recordWrite();
+            }
+            return total;
+        }
+    }
+
+    /**
+     * batch() for an INSERT, returning the generated key of each row in
+     * order (0 where the driver reported none).
+     */
+    public long[] batchInsert(String sql, List<Object[]> rows) throws SQLException {
+        long[] keys = new long[rows.size()];
+        if (rows.isEmpty()) {
+            return keys;
+        }
+
+        try (Connection conn = source.get();
+                PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            for (Object[] params : rows) {
+                bind(stmt, params);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            DBConnectionManager.recordWrite();
+
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                for (int i = 0; i < keys.length && rs.next(); i++) {
+                    keys[i] = rs.getLong(1);
+                }
+            }
+            return keys;
+        }
+    }
+
+    // INSERT returning the generated key, or 0 when no row was inserted
+    public long insert(String sql, Object... params) throws SQLException {
+        try (Connection conn = source.get();
+                PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            bind(stmt, params);
+            if (stmt.executeUpdate() == 0) {
+                return 0;
+            }
+            DBConnectionManager.recordWrite();
+
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                return keys.next() ? keys.getLong(1) : 0;
+            }
+        }
+    }
+
+    // =============================================
+    // HELPERS
+    // =============================================
+    /**
+     * Placeholders for an IN list of values (not empty), appending the
+     * values to params. The list is padded to the next power of two (at
+     * least 8) by repeating its last value, so IN lists of any length map
+     * to a few SQL texts and share cached statements instead of evicting
+     * the hot ones. Duplicates do not change what IN matches.
+     */
+    public static String in(List<?> values, List<Object> params) {
+        int size = inListSize(values.size());
+        params.addAll(values);
+        Object last = values.get(values.size() - 1);
+        for (int i = values.size(); i < size; i++) {
+            params.add(last);
+        }
+        return "?,".repeat(size - 1) + "?";
+    }
+
+    // Bucketed length of an IN list of n values
+    static int inListSize(int n) {
+        return Math.max(8, Integer.highestOneBit(Math.max(1, n - 1)) << 1);
+    }
+
+    /**
+     * Zone Connector/J renders java.util.Date parameters in (its resolved
+     * connectionTimeZone), so calendar arithmetic done in Java agrees with
+     * DATE_FORMAT(?, ...) on the server. The JVM zone for other drivers.
+     */
+    public ZoneId parameterZone() throws SQLException {
+        ZoneId zone = parameterZone;
+        if (zone == null) {
+            try (Connection conn = source.get()) {
+                TimeZone tz = conn.isWrapperFor(JdbcConnection.class)
+                        ? conn.unwrap(JdbcConnection.class).getSession().getServerSession().getSessionTimeZone()
+                        : null;
+                zone = tz != null ? tz.toZoneId() : ZoneId.systemDefault();
+            }
+            parameterZone = zone;
+        }
+        return zone;
+    }
+
+    // Whether fetchSize > 0 gets a server-side cursor on conn (Connector/J useCursorFetch)
+    private static boolean cursorFetchEnabled(Connection conn) {
+        try {
+            return conn.isWrapperFor(JdbcConnection.class)
+                    && conn.unwrap(JdbcConnection.class).getPropertySet()
+                            .getBooleanProperty(PropertyKey.useCursorFetch).getValue();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Binds params in order. java.util.Date is sent as a TIMESTAMP,
+     * booleans as 1/0 and null as SQL NULL.
+     */
+    public static void bind(PreparedStatement stmt, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            Object p = params[i];
+            int index = i + 1;
+
+            if (p == null) {
+                stmt.setNull(index, Types.NULL);
+            } else if (p instanceof Integer v) {
+                stmt.setInt(index, v);
+            } else if (p instanceof String v) {
+                stmt.setString(index, v);
+            } else if (p instanceof Double v) {
+                stmt.setDouble(index, v);
+            } else if (p instanceof Boolean v) {
+                stmt.setInt(index, v ? 1 : 0);
+            } else if (p instanceof Timestamp v) {
+                stmt.setTimestamp(index, v);
+            } else if (p instanceof java.util.Date v) {
+                stmt.setTimestamp(index, new Timestamp(v.getTime()));
+            } else {
+                stmt.setObject(index, p);
+            }
+        }
+    }
+
+    // Nullable TIMESTAMP/DATETIME column; Timestamp is already a java.util.Date
+    public static java.util.Date getDate(ResultSet rs, int index) throws SQLException {
+        return index > 0 ? rs.getTimestamp(index) : null;
+    }
+
+    // Nullable string column that may be missing from the query (index 0)
+    public static String getString(ResultSet rs, int index) throws SQLException {
+        return index > 0 ? rs.getString(index) : null;
+    }
+
+    /**
+     * Column label to index lookup, built once per ResultSet.
+     */
+    public static final class Columns {
+
+        private final Map<String, Integer> indexes;
+
+        Columns(ResultSet rs) throws SQLException {
+            ResultSetMetaData meta = rs.getMetaData();
+            int count = meta.getColumnCount();
+
+            indexes = new HashMap<>(count * 2);
+            for (int i = 1; i <= count; i++) {
+                indexes.putIfAbsent(meta.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        // 1-based index, or 0 when the query has no such column
+        public int of(String label) {
+            Integer index = indexes.get(label.toLowerCase(Locale.ROOT));
+            return index != null ? index : 0;
+        }
+    }
+}
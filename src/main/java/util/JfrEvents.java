@@ -0,0 +1,119 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for filtered requests, DAO calls and M-Pesa
+ * calls. They are enabled by default and carry no stack traces, so they can
+ * stay on in a continuous recording, e.g.
+ * -XX:StartFlightRecording:maxage=1h,disk=true
+ *
+ * The customer id of the current request is kept per thread (set by
+ * RoleFilter) so DAO and M-Pesa events can be correlated with the page.
+ */
+public final class JfrEvents {
+
+    public static final String OK = "OK";
+    public static final String ERROR = "ERROR";
+
+    private static final ThreadLocal<Integer> CUSTOMER_ID = new ThreadLocal<>();
+
+    private JfrEvents() {
+    }
+
+    // =============================================
+    // REQUEST CONTEXT
+    // =============================================
+    public static void setCustomerId(int customerId) {
+        if (customerId > 0) {
+            CUSTOMER_ID.set(customerId);
+        }
+    }
+
+    public static void clearCustomerId() {
+        CUSTOMER_ID.remove();
+    }
+
+    // 0 when the request has no logged-in customer
+    public static int currentCustomerId() {
+        Integer id = CUSTOMER_ID.get();
+        return id != null ? id : 0;
+    }
+
+    // =============================================
+    // EVENTS
+    // =============================================
+    @Name("telecom.Request")
+    @Label("HTTP Request")
+    @Description("Request handled by RoleFilter")
+    @Category({"Telecom", "Web"})
+    @StackTrace(false)
+    public static class RequestEvent extends Event {
+
+        @Label("Method")
+        public String method;
+
+        @Label("Path")
+        public String path;
+
+        @Label("Role")
+        public String role;
+
+        @Label("Customer Id")
+        public int customerId;
+
+        @Label("Status")
+        public int status;
+
+        @Label("Outcome")
+        public String outcome;
+    }
+
+    @Name("telecom.DaoCall")
+    @Label("DAO Call")
+    @Description("Connection lease attributed to a dao package method")
+    @Category({"Telecom", "Database"})
+    @StackTrace(false)
+    public static class DaoCallEvent extends Event {
+
+        @Label("DAO Method")
+        public String daoMethod;
+
+        @Label("Rows")
+        public long rows;
+
+        @Label("Customer Id")
+        public int customerId;
+
+        @Label("Outcome")
+        public String outcome;
+    }
+
+    @Name("telecom.MpesaCall")
+    @Label("M-Pesa Call")
+    @Description("Outgoing Daraja API call")
+    @Category({"Telecom", "M-Pesa"})
+    @StackTrace(false)
+    public static class MpesaCallEvent extends Event {
+
+        @Label("Operation")
+        public String operation;
+
+        @Label("Customer Id")
+        public int customerId;
+
+        @Label("HTTP Status")
+        public int httpStatus;
+
+        @Label("Response Code")
+        public String responseCode;
+
+        @Label("Outcome")
+        public String outcome;
+    }
+}
@@ -0,0 +1,137 @@
+package util;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Streams the telecom.* JFR events in-process and keeps the most recent
+ * ones for the admin events page. Disable with -Dtelecom.jfr.liveView=false.
+ */
+@WebListener
+public class JfrLiveView implements ServletContextListener {
+
+    private static final int CAPACITY = 200;
+
+    private static final Deque<Row> RECENT = new ArrayDeque<>(CAPACITY);
+
+    private static RecordingStream stream;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        if (!Boolean.parseBoolean(System.getProperty("telecom.jfr.liveView", "true"))) {
+            return;
+        }
+
+        try {
+            RecordingStream rs = new RecordingStream();
+            rs.setMaxAge(Duration.ofMinutes(1));
+
+            for (String name : new String[]{"telecom.Request", "telecom.DaoCall", "telecom.MpesaCall"}) {
+                rs.enable(name).withoutStackTrace();
+                rs.onEvent(name, JfrLiveView::add);
+            }
+
+            rs.startAsync();
+            stream = rs;
+        } catch (RuntimeException e) {
+            System.err.println("[JfrLiveView] Flight Recorder unavailable: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    public static boolean isRunning() {
+        return stream != null;
+    }
+
+    // Newest first
+    public static List<Row> getRecent() {
+        synchronized (RECENT) {
+            return new ArrayList<>(RECENT);
+        }
+    }
+
+    private static void add(RecordedEvent e) {
+        String type = e.getEventType().getName().substring("telecom.".length());
+        String detail;
+
+        switch (type) {
+            case "Request" ->
+                detail = e.getString("method") + " " + e.getString("path") + " -> " + e.getInt("status");
+            case "DaoCall" ->
+                detail = e.getString("daoMethod") + " (" + e.getLong("rows") + " rows)";
+            default ->
+                detail = e.getString("operation") + " -> HTTP " + e.getInt("httpStatus")
+                        + (e.getString("responseCode") != null ? ", code " + e.getString("responseCode") : "");
+        }
+
+        Row row = new Row(e.getStartTime(), type, detail, e.getInt("customerId"),
+                e.getDuration().toNanos() / 1_000_000.0, e.getString("outcome"));
+
+        synchronized (RECENT) {
+            if (RECENT.size() == CAPACITY) {
+                RECENT.removeLast();
+            }
+            RECENT.addFirst(row);
+        }
+    }
+
+    public static class Row {
+
+        private final Instant time;
+        private final String type;
+        private final String detail;
+        private final int customerId;
+        private final double durationMs;
+        private final String outcome;
+
+        Row(Instant time, String type, String detail, int customerId, double durationMs, String outcome) {
+            this.time = time;
+            this.type = type;
+            this.detail = detail;
+            this.customerId = customerId;
+            this.durationMs = durationMs;
+            this.outcome = outcome;
+        }
+
+        public Instant getTime() {
+            return time;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+
+        public int getCustomerId() {
+            return customerId;
+        }
+
+        public double getDurationMs() {
+            return durationMs;
+        }
+
+        public String getOutcome() {
+            return outcome;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package util;
+
+import java.sql.Connection;
+
+/**
+ * Accounting for one connection lease: the DAO method that borrowed it,
+ * rows its statements read or wrote, and whether any of them failed.
+ * finish() records DBMetrics and emits the JFR DaoCall event.
+ */
+final class LeaseStats implements MeteredStatement.Sink {
+
+    final long borrowedAt = System.nanoTime();
+    final String caller = DBMetrics.callerMethod();
+
+    private final int customerId = JfrEvents.currentCustomerId();
+    private final JfrEvents.DaoCallEvent event = new JfrEvents.DaoCallEvent();
+    private long rows;
+    private boolean failed;
+
+    LeaseStats() {
+        event.begin();
+    }
+
+    @Override
+    public void rows(long n) {
+        rows += n;
+    }
+
+    @Override
+    public void failed(Connection owner) {
+        failed = true;
+        UnitOfWork.statementFailed(owner);
+    }
+
+    void finish() {
+        DBMetrics.recordMethod(caller, (System.nanoTime() - borrowedAt) / 1_000_000.0, rows);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.daoMethod = caller;
+            event.rows = rows;
+            event.customerId = customerId;
+            event.outcome = failed ? JfrEvents.ERROR : JfrEvents.OK;
+            event.commit();
+        }
+    }
+}
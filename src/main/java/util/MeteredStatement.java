@@ -0,0 +1,225 @@
+package util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wraps a Statement (or PreparedStatement/CallableStatement) handed out by
+ * the pool so the rows it reads or writes are counted against the lease
+ * that created it, and each execute is timed per normalized SQL. Bound
+ * parameters are remembered so slow executions can be logged with them.
+ */
+public class MeteredStatement implements InvocationHandler {
+
+    /**
+     * Receives the rows read/written by statements of one lease, and
+     * SQLExceptions they throw (owner is the lease they were created on).
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        void rows(long n);
+
+        default void failed(Connection owner) {
+        }
+    }
+
+    private final Statement target;
+    private final Connection owner;
+    private final Sink sink;
+    private final String sql;
+    private final String caller;
+
+    // Parameters by index - 1, for the slow-query log
+    private final List<Object> params = new ArrayList<>();
+
+    private MeteredStatement(Statement target, Connection owner, Sink sink, String sql, String caller) {
+        this.target = target;
+        this.owner = owner;
+        this.sink = sink;
+        this.sql = sql;
+        this.caller = caller;
+    }
+
+    /**
+     * type is the interface the caller asked for (Statement, PreparedStatement
+     * or CallableStatement), i.e. the return type of the Connection method.
+     * sql is the prepared SQL, or null for a plain Statement (the SQL then
+     * comes with each execute call). caller is the DAO method for the log.
+     */
+    public static Statement wrap(Statement target, Class<?> type, Connection owner, Sink sink,
+            String sql, String caller) {
+        return (Statement) Proxy.newProxyInstance(
+                MeteredStatement.class.getClassLoader(),
+                new Class<?>[]{type},
+                new MeteredStatement(target, owner, sink, sql, caller));
+    }
+
+    /**
+     * Meters statements on a connection that did not come from the built-in
+     * pool (container DataSource), so they show up in the same metrics.
+     */
+    public static Connection wrapConnection(Connection physical) {
+        LeaseStats stats = new LeaseStats();
+
+        return (Connection) Proxy.newProxyInstance(
+                MeteredStatement.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "close" -> {
+                            if (!physical.isClosed()) {
+                                stats.finish();
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+
+                    Object result;
+                    try {
+                        result = method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+
+                    if (result instanceof Statement stmt) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                        return wrap(stmt, method.getReturnType(), (Connection) proxy, stats, sql, stats.caller);
+                    }
+                    return result;
+                });
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "getConnection" -> {
+                return owner;
+            }
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            case "toString" -> {
+                return "Metered[" + target + "]";
+            }
+            default -> {
+            }
+        }
+
+        String name = method.getName();
+        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+            captureParam(index, name.equals("setNull") ? null : args[1]);
+        } else if (name.equals("clearParameters")) {
+            params.clear();
+        }
+
+        boolean execute = name.startsWith("execute");
+        long start = execute ? System.nanoTime() : 0;
+
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                sink.failed(owner);
+            }
+            throw e.getCause();
+        } finally {
+            if (execute) {
+                recordExecute(args, (System.nanoTime() - start) / 1_000_000.0);
+            }
+        }
+
+        if (result instanceof ResultSet rs) {
+            return wrapResultSet(rs, (Statement) proxy);
+        }
+
+        switch (method.getName()) {
+            case "executeUpdate", "executeLargeUpdate" ->
+                sink.rows(((Number) result).longValue());
+            case "executeBatch" -> {
+                for (int n : (int[]) result) {
+                    sink.rows(Math.max(n, 0));
+                }
+            }
+            default -> {
+            }
+        }
+
+        return result;
+    }
+
+    private void captureParam(int index, Object value) {
+        if (index < 1) {
+            return;
+        }
+        while (params.size() < index) {
+            params.add(null);
+        }
+        params.set(index - 1, value);
+    }
+
+    private void recordExecute(Object[] args, double millis) {
+        // Statement.execute*(sql, ...) carries its own SQL
+        String text = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+        if (text == null) {
+            return;
+        }
+
+        DBMetrics.recordStatement(SlowQueryLog.normalize(text), millis);
+        if (SlowQueryLog.isSlow(millis)) {
+            SlowQueryLog.log(text, caller, millis, text == sql ? params : null);
+        }
+    }
+
+    private ResultSet wrapResultSet(ResultSet rs, Statement statementProxy) {
+        return (ResultSet) Proxy.newProxyInstance(
+                MeteredStatement.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getStatement" -> {
+                            return statementProxy;
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        default -> {
+                        }
+                    }
+
+                    Object value;
+                    try {
+                        value = method.invoke(rs, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+
+                    if ("next".equals(method.getName()) && Boolean.TRUE.equals(value)) {
+                        sink.rows(1);
+                    }
+                    return value;
+                });
+    }
+}
@@ -0,0 +1,258 @@
+package util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the versioned SQL scripts under db/migration at startup.
+ *
+ * Scripts are listed in db/migration/migrations.txt and named
+ * V&lt;version&gt;__&lt;description&gt;.sql. Each applied version is recorded in
+ * schema_migrations with a SHA-256 checksum of the script; a checksum that
+ * no longer matches stops the run, since the database no longer reflects
+ * what the file says. A MySQL named lock keeps two nodes starting at the
+ * same time from applying the same script twice.
+ *
+ * Any failure (unreadable script, checksum mismatch, lock timeout, failing
+ * statement) throws, so the deployment fails instead of starting the jobs
+ * against a schema the DAOs do not match.
+ *
+ * A script that fails halfway is NOT rolled back: MySQL commits every DDL
+ * statement on its own. The statements before the failing one stay applied
+ * and the version is not recorded, so a plain rerun fails on "already
+ * exists". Undo (or finish) those statements by hand, then redeploy.
+ */
+public class MigrationRunner {
+
+    private static final String DIR = "db/migration/";
+    private static final String INDEX = DIR + "migrations.txt";
+    private static final String LOCK = "telecomdb.schema_migrations";
+    private static final int LOCK_TIMEOUT_SEC = 60;
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS schema_migrations ("
+            + "version INT NOT NULL, "
+            + "description VARCHAR(200) NOT NULL, "
+            + "checksum CHAR(64) NOT NULL, "
+            + "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+            + "execution_ms INT NOT NULL, "
+            + "PRIMARY KEY (version)"
+            + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
+
+    /**
+     * Applies every pending migration in order and returns the number
+     * applied. Throws IllegalStateException when the schema could not be
+     * brought up to date; the run stops at the failing script.
+     */
+    public static int migrate() {
+        List<Migration> migrations;
+        try {
+            migrations = load();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read migrations: " + e.getMessage(), e);
+        }
+
+        try (Connection conn = DBConnectionManager.getConnection()) {
+
+            if (!acquireLock(conn)) {
+                throw new IllegalStateException("Timed out after " + LOCK_TIMEOUT_SEC
+                        + " s waiting for the migration lock " + LOCK);
+            }
+
+            try {
+                return apply(conn, migrations);
+            } finally {
+                releaseLock(conn);
+            }
+
+        } catch (SQLException e) {
+            throw new IllegalStateException("Migration failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static int apply(Connection conn, List<Migration> migrations) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(CREATE_TABLE);
+        }
+
+        Map<Integer, String> applied = appliedChecksums(conn);
+        int count = 0;
+
+        for (Migration m : migrations) {
+            String checksum = applied.get(m.version);
+
+            if (checksum != null) {
+                if (!checksum.equals(m.checksum)) {
+                    throw new SQLException("Checksum mismatch for applied migration " + m.file
+                            + " (database " + checksum + ", file " + m.checksum + ")");
+                }
+                continue;
+            }
+
+            long start = System.currentTimeMillis();
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : m.statements) {
+                    stmt.execute(sql);
+                }
+            } catch (SQLException e) {
+                throw new SQLException("Error applying " + m.file + " (statements before the failing one "
+                        + "stay applied; clean them up by hand before redeploying): " + e.getMessage(), e);
+            }
+            long ms = System.currentTimeMillis() - start;
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO schema_migrations (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+                JdbcTemplate.bind(ps, m.version, m.description, m.checksum, (int) ms);
+                ps.executeUpdate();
+            }
+
+            System.out.println("[MigrationRunner] Applied " + m.file + " in " + ms + " ms");
+            count++;
+        }
+
+        return count;
+    }
+
+    private static Map<Integer, String> appliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+
+        try (PreparedStatement ps = conn.prepareStatement("SELECT version, checksum FROM schema_migrations");
+                ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    // =============================================
+    // LOCKING
+    // =============================================
+    private static boolean acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            JdbcTemplate.bind(ps, LOCK, LOCK_TIMEOUT_SEC);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static void releaseLock(Connection conn) {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            JdbcTemplate.bind(ps, LOCK);
+            ps.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("[MigrationRunner] Could not release migration lock: " + e.getMessage());
+        }
+    }
+
+    // =============================================
+    // LOADING
+    // =============================================
+    private static List<Migration> load() throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        int lastVersion = 0;
+
+        for (String file : readLines(INDEX)) {
+            Matcher m = FILE_NAME.matcher(file);
+            if (!m.matches()) {
+                throw new IOException("Bad migration file name: " + file);
+            }
+
+            int version = Integer.parseInt(m.group(1));
+            if (version <= lastVersion) {
+                throw new IOException("Migrations out of order at " + file);
+            }
+            lastVersion = version;
+
+            String script = String.join("\n", readLines(DIR + file));
+            migrations.add(new Migration(version, m.group(2).replace('_', ' '), file,
+                    sha256(script), split(script)));
+        }
+        return migrations;
+    }
+
+    // Non-blank lines, trimmed, without '#' comment lines (index) or leading "--" comments (scripts)
+    private static List<String> readLines(String resource) throws IOException {
+        InputStream in = MigrationRunner.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Missing resource " + resource);
+        }
+
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (!line.isEmpty() && !line.startsWith("#") && !line.startsWith("--")) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    // Statements are separated by ';' at the end of a line
+    private static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        for (String line : script.split("\n")) {
+            current.append(line).append('\n');
+            if (line.endsWith(";")) {
+                statements.add(current.substring(0, current.lastIndexOf(";")).strip());
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().strip());
+        }
+        return statements;
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Migration {
+
+        final int version;
+        final String description;
+        final String file;
+        final String checksum;
+        final List<String> statements;
+
+        Migration(int version, String description, String file, String checksum, List<String> statements) {
+            this.version = version;
+            this.description = description;
+            this.file = file;
+            this.checksum = checksum;
+            this.statements = statements;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically reads replication lag from the replica so read-only
+ * traffic can fall back to the primary when the replica is behind or down.
+ *
+ * A server with no replication configured (SHOW REPLICA STATUS is empty)
+ * counts as unhealthy: it is a mis-pointed URL or a replica after RESET
+ * REPLICA ALL, and its data never catches up. allowStandalone accepts it
+ * as lag 0 (e.g. a read-only copy kept current by other means).
+ */
+public class ReplicaLagMonitor {
+
+    private final ConnectionPool replica;
+    private final long maxLagSeconds;
+    private final boolean allowStandalone;
+    private final ScheduledExecutorService scheduler;
+
+    // -1 = unknown (replica unreachable, replication stopped or not configured)
+    private volatile long lagSeconds = -1;
+    private boolean standaloneLogged;
+
+    public ReplicaLagMonitor(ConnectionPool replica, long maxLagSeconds, long checkIntervalMs,
+            boolean allowStandalone) {
+        this.replica = replica;
+        this.maxLagSeconds = maxLagSeconds;
+        this.allowStandalone = allowStandalone;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-replica-lag");
+            t.setDaemon(true);
+            return t;
+        });
+
+        check();
+        scheduler.scheduleWithFixedDelay(this::check, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isHealthy() {
+        long lag = lagSeconds;
+        return lag >= 0 && lag <= maxLagSeconds;
+    }
+
+    public long getLagSeconds() {
+        return lagSeconds;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    // =============================================
+    // HELPERS
+    // =============================================
+    private void check() {
+        try (Connection conn = replica.getConnection(); Statement stmt = conn.createStatement()) {
+            lagSeconds = readLag(stmt);
+        } catch (SQLException e) {
+            lagSeconds = -1;
+            System.err.println("Replica lag check failed: " + e.getMessage());
+        }
+    }
+
+    private long readLag(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SHOW REPLICA STATUS")) {
+            return readLag(rs, "Seconds_Behind_Source");
+        } catch (SQLException e) {
+            // MySQL before 8.0.22
+            try (ResultSet rs = stmt.executeQuery("SHOW SLAVE STATUS")) {
+                return readLag(rs, "Seconds_Behind_Master");
+            }
+        }
+    }
+
+    private long readLag(ResultSet rs, String column) throws SQLException {
+        // No replication configured: nothing keeps this server current
+        if (!rs.next()) {
+            if (allowStandalone) {
+                return 0;
+            }
+            if (!standaloneLogged) {
+                standaloneLogged = true;
+                System.err.println("Replica has no replication configured, reading from the primary "
+                        + "(set db.replica.allowStandalone=true if that is intended)");
+            }
+            return -1;
+        }
+
+        long lag = rs.getLong(column);
+        return rs.wasNull() ? -1 : lag;
+    }
+}
@@ -0,0 +1,228 @@
+package util;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes statements slower than db.slowQuery.thresholdMs to a rolling log
+ * file, with the calling DAO method and the bound parameters.
+ *
+ * Parameters bound to the users.password column are replaced by "***".
+ * Also normalizes SQL text (literals and IN lists collapsed) so
+ * per-statement latency can be grouped in DBMetrics.
+ */
+public final class SlowQueryLog {
+
+    private static final Logger LOG = Logger.getLogger("telecom.slowquery");
+
+    private static final String REDACTED = "***";
+    private static final int MAX_PARAM_LENGTH = 100;
+
+    // SQL text is constant per DAO call site, so these stay small; the cap guards against ad-hoc SQL
+    private static final int MAX_CACHED = 2000;
+    private static final Map<String, String> NORMALIZED = new ConcurrentHashMap<>();
+    private static final Map<String, boolean[]> REDACT = new ConcurrentHashMap<>();
+    private static final boolean[] REDACT_ALL = new boolean[0];
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Pattern USERS_TABLE = Pattern.compile("(?i)\\busers\\b");
+    private static final Pattern PASSWORD_COMPARE = Pattern.compile("(?i)\\bpassword\\s*(?:=|<>|!=|like)\\s*$");
+    private static final Pattern INSERT = Pattern.compile("(?is)insert\\s+into\\s+\\S+\\s*\\(([^)]*)\\)\\s*values\\s*\\(([^)]*)\\)");
+
+    private static volatile long thresholdMs = -1;
+
+    private SlowQueryLog() {
+    }
+
+    /**
+     * Called once from DBConnectionManager. A negative threshold disables
+     * the log; file is a java.util.logging FileHandler pattern.
+     */
+    static void configure(long threshold, String file, int limitBytes, int files) {
+        if (threshold < 0) {
+            return;
+        }
+
+        try {
+            FileHandler handler = new FileHandler(file, limitBytes, files, true);
+            handler.setFormatter(new LineFormatter());
+            LOG.addHandler(handler);
+            LOG.setUseParentHandlers(false);
+            LOG.setLevel(Level.INFO);
+            thresholdMs = threshold;
+            System.out.println("[SlowQueryLog] Logging statements over " + threshold + " ms to " + file);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[SlowQueryLog] Cannot open " + file + ": " + e.getMessage());
+        }
+    }
+
+    public static long getThresholdMs() {
+        return thresholdMs;
+    }
+
+    static boolean isSlow(double millis) {
+        long threshold = thresholdMs;
+        return threshold >= 0 && millis >= threshold;
+    }
+
+    static void log(String sql, String caller, double millis, List<Object> params) {
+        StringBuilder line = new StringBuilder(256);
+        line.append(Instant.now()).append(' ')
+                .append(String.format(Locale.ROOT, "%.1f", millis)).append("ms ")
+                .append(caller).append(" | ")
+                .append(WHITESPACE.matcher(sql).replaceAll(" ").trim());
+
+        if (params != null && !params.isEmpty()) {
+            line.append(" | params=").append(formatParams(sql, params));
+        }
+        LOG.info(line.toString());
+    }
+
+    // =============================================
+    // PARAMETERS
+    // =============================================
+    static String formatParams(String sql, List<Object> params) {
+        boolean[] redact = redactedIndexes(sql);
+        StringBuilder out = new StringBuilder("[");
+
+        for (int i = 0; i < params.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+
+            Object p = params.get(i);
+            if (redact == null || (i < redact.length && redact[i])) {
+                out.append(REDACTED);
+            } else if (p == null) {
+                out.append("NULL");
+            } else if (p instanceof String s) {
+                out.append('\'').append(s.length() > MAX_PARAM_LENGTH
+                        ? s.substring(0, MAX_PARAM_LENGTH) + "..." : s).append('\'');
+            } else {
+                out.append(p);
+            }
+        }
+        return out.append(']').toString();
+    }
+
+    /**
+     * Which placeholders (0-based) carry a users.password value. Returns
+     * null, meaning redact every parameter, when the statement touches the
+     * password column in a shape we cannot map.
+     */
+    private static boolean[] redactedIndexes(String sql) {
+        boolean[] cached = REDACT.get(sql);
+        if (cached != null) {
+            return cached == REDACT_ALL ? null : cached;
+        }
+
+        boolean[] redact = computeRedaction(sql);
+        if (REDACT.size() < MAX_CACHED) {
+            REDACT.put(sql, redact == null ? REDACT_ALL : redact);
+        }
+        return redact;
+    }
+
+    private static boolean[] computeRedaction(String sql) {
+        String lower = sql.toLowerCase(Locale.ROOT);
+        if (!lower.contains("password") || !USERS_TABLE.matcher(sql).find()) {
+            return new boolean[0];
+        }
+
+        List<Integer> placeholders = placeholderPositions(sql);
+        boolean[] redact = new boolean[placeholders.size()];
+        boolean found = false;
+
+        // INSERT INTO users (a, password, ...) VALUES (?, ?, ...)
+        Matcher insert = INSERT.matcher(sql);
+        if (insert.find()) {
+            String[] columns = insert.group(1).split(",");
+            String[] values = insert.group(2).split(",");
+            int valuesStart = insert.start(2);
+
+            for (int c = 0, offset = valuesStart; c < columns.length && c < values.length; c++) {
+                int q = values[c].indexOf('?');
+                if (q >= 0 && columns[c].trim().replace("`", "").equalsIgnoreCase("password")) {
+                    redact[placeholders.indexOf(offset + q)] = true;
+                    found = true;
+                }
+                offset += values[c].length() + 1;
+            }
+        }
+
+        // ... password = ? (UPDATE ... SET, WHERE)
+        for (int i = 0; i < placeholders.size(); i++) {
+            if (PASSWORD_COMPARE.matcher(sql.substring(0, placeholders.get(i))).find()) {
+                redact[i] = true;
+                found = true;
+            }
+        }
+
+        return found ? redact : null;
+    }
+
+    // Offsets of '?' placeholders outside string literals
+    private static List<Integer> placeholderPositions(String sql) {
+        List<Integer> positions = new ArrayList<>();
+        boolean inString = false;
+
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                inString = !inString;
+            } else if (c == '?' && !inString) {
+                positions.add(i);
+            }
+        }
+        return Collections.unmodifiableList(positions);
+    }
+
+    // =============================================
+    // NORMALIZATION
+    // =============================================
+    /**
+     * SQL with literals replaced by '?', IN lists collapsed and whitespace
+     * squeezed, so one DAO query maps to one metrics series.
+     */
+    static String normalize(String sql) {
+        String normalized = NORMALIZED.get(sql);
+        if (normalized != null) {
+            return normalized;
+        }
+
+        normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("IN (?...)");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+
+        if (NORMALIZED.size() < MAX_CACHED) {
+            NORMALIZED.put(sql, normalized);
+        }
+        return normalized;
+    }
+
+    private static final class LineFormatter extends Formatter {
+
+        @Override
+        public String format(LogRecord record) {
+            return record.getMessage() + System.lineSeparator();
+        }
+    }
+}
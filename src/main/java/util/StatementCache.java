@@ -0,0 +1,264 @@
+package util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements for ONE physical connection, keyed by
+ * SQL text. DAOs keep calling conn.prepareStatement(sql) and close() as
+ * before; close() on a cached statement closes its result set and puts it
+ * back the way prepareStatement() made it (no parameters, batch, warnings;
+ * default fetch size, max rows and query timeout) so the next borrower can
+ * re-use the parse without inheriting anything.
+ *
+ * SQL with IN lists should use JdbcTemplate.in(), which buckets the list
+ * length: every distinct length is a distinct cache key.
+ *
+ * Not thread-safe: a pooled connection is only used by one thread at a time.
+ */
+public class StatementCache {
+
+    // Shared counters across all connections
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+
+    private final Connection physical;
+    private final int capacity;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    public StatementCache(Connection physical, int capacity) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns a logical statement for sql. owner is the pooled connection
+     * proxy, reported by getConnection() on the statement.
+     */
+    public PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+
+        if (cached != null && (cached.evicted || cached.statement.isClosed())) {
+            statements.remove(sql);
+            cached = null;
+        }
+
+        // Same SQL still open on this connection (nested use): don't share it
+        if (cached != null && cached.holder != null) {
+            MISSES.incrementAndGet();
+            return physical.prepareStatement(sql);
+        }
+
+        if (cached != null) {
+            HITS.incrementAndGet();
+        } else {
+            MISSES.incrementAndGet();
+            cached = new CachedStatement(physical.prepareStatement(sql));
+            statements.put(sql, cached);
+            evictOverflow();
+        }
+
+        LogicalStatementHandler handler = new LogicalStatementHandler(cached, owner);
+        cached.holder = handler;
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                handler);
+    }
+
+    /**
+     * Called when the connection goes back to the pool: any statement a
+     * borrower forgot to close becomes available again.
+     */
+    public void releaseAll() {
+        for (CachedStatement cached : statements.values()) {
+            if (cached.holder != null) {
+                cached.holder = null;
+                try {
+                    cached.reset();
+                } catch (SQLException e) {
+                    cached.evicted = true;
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        for (CachedStatement cached : statements.values()) {
+            closeQuietly(cached.statement);
+        }
+        statements.clear();
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    public static long getHits() {
+        return HITS.get();
+    }
+
+    public static long getMisses() {
+        return MISSES.get();
+    }
+
+    public static long getEvictions() {
+        return EVICTIONS.get();
+    }
+
+    // =============================================
+    // HELPERS
+    // =============================================
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CachedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > capacity && it.hasNext()) {
+            CachedStatement eldest = it.next().getValue();
+            it.remove();
+            EVICTIONS.incrementAndGet();
+
+            // A statement still in use is closed when its borrower closes it
+            eldest.evicted = true;
+            if (eldest.holder == null) {
+                closeQuietly(eldest.statement);
+            }
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static final class CachedStatement {
+
+        final PreparedStatement statement;
+        // Logical handle currently borrowing this statement, if any
+        LogicalStatementHandler holder;
+        boolean evicted;
+
+        // Settings as prepared, restored on check-in
+        private final int fetchSize;
+        private final int maxRows;
+        private final int queryTimeout;
+
+        CachedStatement(PreparedStatement statement) throws SQLException {
+            this.statement = statement;
+            this.fetchSize = statement.getFetchSize();
+            this.maxRows = statement.getMaxRows();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+
+        // Undo whatever the last borrower did to the statement
+        void reset() throws SQLException {
+            ResultSet rs = statement.getResultSet();
+            if (rs != null) {
+                rs.close();
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+            statement.clearWarnings();
+
+            if (statement.getFetchSize() != fetchSize) {
+                statement.setFetchSize(fetchSize);
+            }
+            if (statement.getMaxRows() != maxRows) {
+                statement.setMaxRows(maxRows);
+            }
+            if (statement.getQueryTimeout() != queryTimeout) {
+                statement.setQueryTimeout(queryTimeout);
+            }
+        }
+    }
+
+    /**
+     * Handed out per prepareStatement() call; close() returns the physical
+     * statement to the cache instead of closing it.
+     */
+    private static final class LogicalStatementHandler implements InvocationHandler {
+
+        private final CachedStatement cached;
+        private final Connection owner;
+        private boolean closed;
+
+        LogicalStatementHandler(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        checkIn();
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed || cached.holder != this || cached.statement.isClosed();
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Cached[" + cached.statement + "]";
+                }
+                default -> {
+                }
+            }
+
+            if (closed || cached.holder != this) {
+                throw new SQLException("Statement is closed");
+            }
+
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void checkIn() throws SQLException {
+            // Already reclaimed when the connection went back to the pool
+            if (cached.holder != this) {
+                return;
+            }
+            cached.holder = null;
+
+            if (cached.evicted) {
+                cached.statement.close();
+                return;
+            }
+
+            try {
+                cached.reset();
+            } catch (SQLException e) {
+                // Broken statement: drop it rather than hand it out again
+                cached.evicted = true;
+                cached.statement.close();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several DAO calls in one database transaction on one connection.
+ *
+ * <pre>
+ * boolean ok = UnitOfWork.inTransaction(() -&gt;
+ *         subDAO.addSubscription(s) &amp;&amp; billingDAO.generateBill(bill));
+ * </pre>
+ *
+ * While the work runs, DBConnectionManager.getConnection() and
+ * getReadConnection() on this thread return the same bound connection, so
+ * DAOs join the transaction without any change. Their close() calls are
+ * ignored, as are commit/rollback/setAutoCommit; a DAO rollback() only
+ * marks the unit rollback-only.
+ *
+ * The transaction commits once when the work returns true. It rolls back
+ * when the work returns false or throws, or when a statement on its
+ * connection failed (DAOs swallow SQLExceptions, so a failure has to be
+ * noticed here instead). Statements on other connections borrowed by the
+ * work (a replica read, a borrow() of its own) do not affect the unit.
+ * Nested calls join the outer unit.
+ *
+ * afterCompletion() callbacks (cache invalidation) run once the outer unit
+ * has committed or rolled back.
+ */
+public final class UnitOfWork {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    @FunctionalInterface
+    public interface Work {
+
+        boolean execute() throws Exception;
+    }
+
+    private final Connection physical;
+    private final Connection handle;
+    private boolean rollbackOnly;
+    private final List<Runnable> afterCompletion = new ArrayList<>();
+
+    private UnitOfWork(Connection physical) {
+        this.physical = physical;
+        this.handle = (Connection) Proxy.newProxyInstance(
+                UnitOfWork.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close", "commit", "setAutoCommit", "setReadOnly" -> {
+                            return null;
+                        }
+                        case "rollback" -> {
+                            rollbackOnly = true;
+                            return null;
+                        }
+                        case "getAutoCommit" -> {
+                            return false;
+                        }
+                        case "isClosed" -> {
+                            return physical.isClosed();
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        default -> {
+                        }
+                    }
+
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Runs work in a transaction. Returns true if it committed; errors are
+     * logged and reported as false.
+     */
+    public static boolean inTransaction(Work work) {
+        UnitOfWork outer = CURRENT.get();
+        if (outer != null) {
+            return joined(outer, work);
+        }
+
+        try (Connection conn = DBConnectionManager.borrow()) {
+            return inTransaction(conn, work);
+        } catch (SQLException e) {
+            System.err.println("[UnitOfWork] Transaction error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Runs work as the outer unit on conn, which the caller closes
+    static boolean inTransaction(Connection conn, Work work) throws SQLException {
+        conn.setAutoCommit(false);
+
+        UnitOfWork uow = new UnitOfWork(conn);
+        CURRENT.set(uow);
+        try {
+            boolean ok = joined(uow, work) && !uow.rollbackOnly;
+
+            if (ok) {
+                conn.commit();
+            } else {
+                conn.rollback();
+            }
+            return ok;
+
+        } catch (SQLException e) {
+            System.err.println("[UnitOfWork] Commit failed: " + e.getMessage());
+            conn.rollback();
+            return false;
+
+        } finally {
+            CURRENT.remove();
+            uow.runAfterCompletion();
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private void runAfterCompletion() {
+        for (Runnable callback : afterCompletion) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                System.err.println("[UnitOfWork] afterCompletion failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static boolean joined(UnitOfWork uow, Work work) {
+        try {
+            if (work.execute()) {
+                return true;
+            }
+        } catch (Exception e) {
+            System.err.println("[UnitOfWork] Work failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+        uow.rollbackOnly = true;
+        return false;
+    }
+
+    // =============================================
+    // USED BY DBConnectionManager / LeaseStats
+    // =============================================
+    // Bound connection for this thread, or null outside a unit of work
+    static Connection currentConnection() {
+        UnitOfWork uow = CURRENT.get();
+        return uow != null ? uow.handle : null;
+    }
+
+    // A statement failed on lease owner: the current unit must roll back if owner is its connection
+    static void statementFailed(Connection owner) {
+        UnitOfWork uow = CURRENT.get();
+        if (uow != null && uow.physical == owner) {
+            uow.rollbackOnly = true;
+        }
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    public static void setRollbackOnly() {
+        UnitOfWork uow = CURRENT.get();
+        if (uow != null) {
+            uow.rollbackOnly = true;
+        }
+    }
+
+    // Runs callback when the current unit ends, or now outside a unit of work
+    public static void afterCompletion(Runnable callback) {
+        UnitOfWork uow = CURRENT.get();
+        if (uow != null) {
+            uow.afterCompletion.add(callback);
+        } else {
+            callback.run();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+-- ===========================================================
+-- V1: Indexes for the predicates BillingDAO / SubscriptionDAO
+--     filter and sort on
+-- ===========================================================
+
+-- Customer bill lists (customer_id = ? AND paid = ? ORDER BY billing_date)
+-- and per-customer monthly totals; amount makes the totals index-only
+CREATE INDEX idx_billing_customer_paid_date
+    ON billing (customer_id, paid, billing_date, amount);
+
+-- Admin paid / unpaid lists (paid = ? ORDER BY billing_date DESC)
+CREATE INDEX idx_billing_paid_date
+    ON billing (paid, billing_date);
+
+-- Monthly totals across all customers: scanned from the index only
+CREATE INDEX idx_billing_date_amount
+    ON billing (billing_date, amount);
+
+-- Active subscriptions and expiry checks (status = 'ACTIVE' AND expiry_date < ?)
+CREATE INDEX idx_subscriptions_status_expiry
+    ON subscriptions (status, expiry_date);
+
+-- Customer subscription lists and "services not yet subscribed"
+-- (customer_id = ? / service_id NOT IN (... WHERE customer_id = ?))
+CREATE INDEX idx_subscriptions_customer_service
+    ON subscriptions (customer_id, service_id);
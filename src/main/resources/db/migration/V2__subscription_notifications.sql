@@ -0,0 +1,14 @@
+-- ===========================================================
+-- V2: Pre-expiry notifications already sent
+--     One row per subscription, offset and expiry, so a renewed
+--     subscription (new expiry_date) is notified again
+-- ===========================================================
+CREATE TABLE subscription_notifications (
+    subscription_id INT NOT NULL,
+    offset_minutes INT NOT NULL,
+    expiry_date DATETIME NOT NULL,
+    channel VARCHAR(50) NOT NULL,
+    sent_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (subscription_id, offset_minutes, expiry_date),
+    FOREIGN KEY (subscription_id) REFERENCES subscriptions(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
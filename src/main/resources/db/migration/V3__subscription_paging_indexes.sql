@@ -0,0 +1,15 @@
+-- ===========================================================
+-- V3: Indexes for the admin subscription list
+--     (SubscriptionDAO.getSubscriptionsPage keyset paging)
+-- ===========================================================
+
+-- Sorted by purchase / expiry date; InnoDB appends the id tie-breaker
+CREATE INDEX idx_subscriptions_purchase_date
+    ON subscriptions (purchase_date);
+
+CREATE INDEX idx_subscriptions_expiry_date
+    ON subscriptions (expiry_date);
+
+-- Customer name prefix filter and sort
+CREATE INDEX idx_customers_name
+    ON customers (name);
@@ -0,0 +1,11 @@
+-- ===========================================================
+-- V4: Opt-in auto-renewal (jobs.SubscriptionRenewalEngine)
+-- ===========================================================
+
+ALTER TABLE subscriptions
+    ADD COLUMN auto_renew TINYINT(1) NOT NULL DEFAULT 0;
+
+-- Renewal claims (auto_renew = 1 AND status = 'ACTIVE' AND expiry_date <= ?
+-- ORDER BY expiry_date ... FOR UPDATE SKIP LOCKED)
+CREATE INDEX idx_subscriptions_renewal
+    ON subscriptions (auto_renew, status, expiry_date);
@@ -0,0 +1,31 @@
+-- ===========================================================
+-- V5: Cold history for jobs.ArchivalJob
+--     EXPIRED subscriptions and paid bills past the retention
+--     window are moved here, keeping the hot tables small
+-- ===========================================================
+
+CREATE TABLE subscriptions_history (
+    id INT NOT NULL,
+    customer_id INT NOT NULL,
+    service_id INT NOT NULL,
+    purchase_date DATETIME NOT NULL,
+    expiry_date DATETIME NOT NULL,
+    status ENUM('ACTIVE','EXPIRED') NOT NULL,
+    auto_renew TINYINT(1) NOT NULL DEFAULT 0,
+    archived_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    KEY idx_subscriptions_history_customer (customer_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 ROW_FORMAT=COMPRESSED;
+
+CREATE TABLE billing_history (
+    id INT NOT NULL,
+    customer_id INT NOT NULL,
+    service_id INT NOT NULL,
+    amount DOUBLE,
+    billing_date TIMESTAMP NULL,
+    paid TINYINT(1),
+    archived_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    KEY idx_billing_history_customer_date (customer_id, billing_date, amount),
+    KEY idx_billing_history_date_amount (billing_date, amount)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 ROW_FORMAT=COMPRESSED;
@@ -0,0 +1,27 @@
+-- ===========================================================
+-- V6: Cluster-wide singleton jobs
+--     job_leases: which node currently runs each background job
+--     (owner holds it until lease_until, renewed by heartbeat)
+--     job_runs: one row per run, on whichever node it ran
+-- ===========================================================
+CREATE TABLE job_leases (
+    job_name VARCHAR(64) NOT NULL,
+    owner VARCHAR(128) NOT NULL,
+    lease_until DATETIME(3) NOT NULL,
+    acquired_at DATETIME(3) NOT NULL,
+    heartbeat_at DATETIME(3) NOT NULL,
+    PRIMARY KEY (job_name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE job_runs (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    job_name VARCHAR(64) NOT NULL,
+    owner VARCHAR(128) NOT NULL,
+    started_at DATETIME(3) NOT NULL,
+    finished_at DATETIME(3) NULL,
+    status ENUM('RUNNING', 'OK', 'FAILED') NOT NULL DEFAULT 'RUNNING',
+    detail VARCHAR(500) NULL,
+    PRIMARY KEY (id),
+    KEY idx_job_runs_job (job_name, started_at),
+    KEY idx_job_runs_started (started_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,32 @@
+-- ===========================================================
+-- V7: Monthly billing totals per customer and service
+--     Kept up to date by BillingDAO writes in the same transaction
+--     as the bill; jobs.RollupReconciliationJob rebuilds recent
+--     months nightly. Covers billing and billing_history.
+-- ===========================================================
+
+CREATE TABLE billing_monthly_rollup (
+    month DATE NOT NULL,
+    customer_id INT NOT NULL,
+    service_id INT NOT NULL,
+    bill_count INT NOT NULL DEFAULT 0,
+    total_amount DOUBLE NOT NULL DEFAULT 0,
+    paid_count INT NOT NULL DEFAULT 0,
+    paid_amount DOUBLE NOT NULL DEFAULT 0,
+    PRIMARY KEY (month, customer_id, service_id),
+    -- Per-customer monthly totals, index-only
+    KEY idx_rollup_customer_month (customer_id, month, total_amount),
+    -- Monthly totals across all customers, index-only and already grouped by month
+    KEY idx_rollup_month_amount (month, total_amount)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Backfill from everything billed so far
+INSERT INTO billing_monthly_rollup
+    (month, customer_id, service_id, bill_count, total_amount, paid_count, paid_amount)
+SELECT DATE_FORMAT(b.billing_date, '%Y-%m-01'), b.customer_id, b.service_id,
+       COUNT(*), COALESCE(SUM(b.amount), 0), SUM(b.paid = 1), COALESCE(SUM(IF(b.paid = 1, b.amount, 0)), 0)
+FROM (SELECT customer_id, service_id, amount, billing_date, paid FROM billing
+      UNION ALL
+      SELECT customer_id, service_id, amount, billing_date, paid FROM billing_history) b
+WHERE b.billing_date IS NOT NULL
+GROUP BY DATE_FORMAT(b.billing_date, '%Y-%m-01'), b.customer_id, b.service_id;
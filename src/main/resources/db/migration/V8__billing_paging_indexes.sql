@@ -0,0 +1,9 @@
+-- ===========================================================
+-- V8: Indexes for the admin billing list
+--     (BillingDAO.getBillsPage keyset paging, per paid tab)
+-- ===========================================================
+
+-- Sorted by amount within a tab; InnoDB appends the id tie-breaker.
+-- Sorting by date uses idx_billing_paid_date from V1
+CREATE INDEX idx_billing_paid_amount
+    ON billing (paid, amount);
@@ -0,0 +1,10 @@
+-- ===========================================================
+-- V9: Amount sort of the admin billing list on COALESCE(amount, 0)
+--     (BillingDAO.getBillsPage), which the page seek can compare
+--     with the 0 Billing reads for a NULL amount
+-- ===========================================================
+
+CREATE INDEX idx_billing_paid_amount_sort
+    ON billing (paid, (COALESCE(amount, 0)));
+
+DROP INDEX idx_billing_paid_amount ON billing;
@@ -0,0 +1,78 @@
+package dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeysetPageTest {
+
+    private static final class Row {
+
+        final int id;
+        final String name;
+
+        Row(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private final KeysetPage<Row> pages = new KeysetPage<Row>("t.id", r -> r.id)
+            .sortable("name", "t.name", r -> r.name);
+
+    @Test
+    void firstPageAndJumpsUseOffset() {
+        assertPage("name", true, null, 40,
+                " ORDER BY t.name ASC, t.id ASC LIMIT ? OFFSET ?", 20, 40);
+        assertPage(null, false, null, 0,
+                " ORDER BY t.id DESC LIMIT ?", 20);
+    }
+
+    @Test
+    void unknownSortSeeksOnIdAlone() {
+        assertPage("nope", false, new Row(9, "x"), 40,
+                " AND t.id < ? ORDER BY t.id DESC LIMIT ?", 9, 20);
+    }
+
+    @Test
+    void ascendingSeekLeavesNullsBehind() {
+        assertPage("name", true, new Row(9, "bob"), 40,
+                " AND (t.name > ? OR (t.name = ? AND t.id > ?)) ORDER BY t.name ASC, t.id ASC LIMIT ?",
+                "bob", "bob", 9, 20);
+    }
+
+    @Test
+    void descendingSeekKeepsTheNullsStillAhead() {
+        assertPage("name", false, new Row(9, "bob"), 40,
+                " AND (t.name < ? OR (t.name = ? AND t.id < ?) OR t.name IS NULL)"
+                + " ORDER BY t.name DESC, t.id DESC LIMIT ?",
+                "bob", "bob", 9, 20);
+    }
+
+    @Test
+    void seekFromANullKeyStaysWithinTheNulls() {
+        assertPage("name", true, new Row(9, null), 40,
+                " AND ((t.name IS NULL AND t.id > ?) OR t.name IS NOT NULL)"
+                + " ORDER BY t.name ASC, t.id ASC LIMIT ?",
+                9, 20);
+        assertPage("name", false, new Row(9, null), 40,
+                " AND ((t.name IS NULL AND t.id < ?)) ORDER BY t.name DESC, t.id DESC LIMIT ?",
+                9, 20);
+    }
+
+    private void assertPage(String sortField, boolean ascending, Row last, int offset,
+            String expectedSql, Object... expectedParams) {
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+
+        pages.appendPage(sql, params, sortField, ascending,
+                last == null ? null : pages.keyOf(last, sortField), offset, 20);
+
+        assertEquals(expectedSql, sql.toString());
+        assertEquals(Arrays.asList(expectedParams), params);
+    }
+}
@@ -0,0 +1,65 @@
+package jobs;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// src/test/resources/db.properties sets jobs.lease.ttlMs=0: no lease, no database
+class JobLeasesTest {
+
+    @Test
+    void withoutLeasesEveryRunGoesAhead() {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertEquals(0, JobLeases.getTtlMs());
+        assertTrue(JobLeases.runExclusive("test-job", () -> "run " + runs.incrementAndGet()));
+        assertTrue(JobLeases.runExclusive("test-job", () -> "run " + runs.incrementAndGet()));
+        assertEquals(2, runs.get());
+        assertTrue(JobLeases.getHeld().isEmpty());
+    }
+
+    @Test
+    void failingBodyIsLoggedNotThrown() {
+        assertTrue(assertDoesNotThrow(() -> JobLeases.runExclusive("test-job", () -> {
+            throw new IllegalStateException("boom");
+        })));
+    }
+
+    @Test
+    void guardedSwallowsRuntimeExceptions() {
+        assertDoesNotThrow(() -> JobLeases.guarded("test-job", () -> {
+            throw new IllegalStateException("boom");
+        }).run());
+    }
+
+    @Test
+    void scheduledJobKeepsRunningAfterAFailure() throws InterruptedException {
+        CountDownLatch runs = new CountDownLatch(3);
+
+        ScheduledExecutorService scheduler = JobLeases.schedule("test-job", 0, 10, () -> {
+            runs.countDown();
+            throw new IllegalStateException("boom");
+        });
+        try {
+            assertTrue(runs.await(5, TimeUnit.SECONDS), "a failed run must not cancel the schedule");
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    void heartbeatIsNotStartedWithoutLeases() {
+        assertDoesNotThrow(() -> {
+            JobLeases.start();
+            JobLeases.shutdown();
+        });
+        assertTrue(JobLeases.getHeld().isEmpty());
+    }
+}
@@ -0,0 +1,35 @@
+package jobs;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SubscriptionImportTest {
+
+    @Test
+    void plainFieldsAreSplitOnCommas() {
+        assertEquals(List.of("alice@example.com", "Fiber 100", "2024-05-01"),
+                SubscriptionImport.parseCsvLine("alice@example.com,Fiber 100,2024-05-01"));
+    }
+
+    @Test
+    void quotedFieldsMayHoldCommasAndEscapedQuotes() {
+        assertEquals(List.of("Smith, John", "The \"Max\" plan", ""),
+                SubscriptionImport.parseCsvLine("\"Smith, John\",\"The \"\"Max\"\" plan\","));
+    }
+
+    @Test
+    void emptyAndMissingFieldsAreKept() {
+        assertEquals(List.of(""), SubscriptionImport.parseCsvLine(""));
+        assertEquals(List.of("", "", ""), SubscriptionImport.parseCsvLine(",,"));
+        assertEquals(List.of("12", "3"), SubscriptionImport.parseCsvLine("12,3"));
+    }
+
+    @Test
+    void unterminatedQuoteRunsToTheEndOfTheLine() {
+        assertEquals(List.of("7", "open, field"),
+                SubscriptionImport.parseCsvLine("7,\"open, field"));
+    }
+}
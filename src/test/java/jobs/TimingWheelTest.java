@@ -0,0 +1,102 @@
+package jobs;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void dueDeadlineIsNotScheduled() {
+        TimingWheel wheel = new TimingWheel(1000, 10_000);
+
+        assertFalse(wheel.add(1, 10_000));
+        assertFalse(wheel.add(2, 5_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void entryFiresAtTheFirstTickAtOrAfterItsDeadline() {
+        TimingWheel wheel = new TimingWheel(1000, 0);
+        List<Integer> fired = new ArrayList<>();
+
+        assertTrue(wheel.add(7, 2_500));
+        wheel.advanceTo(2_999, fired::add);
+        assertTrue(fired.isEmpty(), "never before the deadline");
+
+        wheel.advanceTo(3_000, fired::add);
+        assertEquals(List.of(7), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void entriesCascadeDownFromHigherLevels() {
+        // Start just before level 0 wraps, so cascades happen at odd offsets
+        TimingWheel wheel = new TimingWheel(1, 62);
+        long[] deadlines = {100, 64 * 64 + 5, 64 * 64 * 64 + 1, 64 * 64 * 64 * 3 + 4000};
+        List<Long> firedAt = new ArrayList<>();
+
+        for (int i = 0; i < deadlines.length; i++) {
+            assertTrue(wheel.add(i, deadlines[i]));
+        }
+
+        long[] now = new long[1];
+        for (now[0] = 63; now[0] <= deadlines[deadlines.length - 1]; now[0]++) {
+            wheel.advanceTo(now[0], id -> firedAt.add(now[0]));
+        }
+
+        assertEquals(List.of(100L, 64L * 64 + 5, 64L * 64 * 64 + 1, 64L * 64 * 64 * 3 + 4000), firedAt);
+    }
+
+    @Test
+    void randomDeadlinesFireExactlyOnceOnTime() {
+        Random random = new Random(12);
+        TimingWheel wheel = new TimingWheel(1, 1_000);
+        Map<Integer, Long> deadlines = new HashMap<>();
+
+        for (int id = 0; id < 5_000; id++) {
+            long deadline = 1_001 + random.nextInt(300_000);
+            deadlines.put(id, deadline);
+            assertTrue(wheel.add(id, deadline));
+        }
+        assertEquals(5_000, wheel.size());
+
+        Map<Integer, Long> fired = new HashMap<>();
+        long[] now = new long[1];
+        // Mix single ticks and larger jumps, as the scheduler does after a pause
+        for (now[0] = 1_000; now[0] <= 302_000; now[0] += 1 + random.nextInt(3)) {
+            wheel.advanceTo(now[0], id -> assertNull(fired.put(id, now[0]), "fired twice: " + id));
+        }
+
+        assertEquals(deadlines.keySet(), fired.keySet());
+        for (Map.Entry<Integer, Long> e : fired.entrySet()) {
+            long deadline = deadlines.get(e.getKey());
+            assertTrue(e.getValue() >= deadline, "early: " + e.getKey());
+            assertTrue(e.getValue() - deadline < 3, "late: " + e.getKey());
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void longJumpFiresEverythingDue() {
+        TimingWheel wheel = new TimingWheel(1000, 0);
+        List<Integer> fired = new ArrayList<>();
+
+        wheel.add(1, 5_000);
+        wheel.add(2, 5_000_000);
+        wheel.add(3, 500_000_000);
+        wheel.advanceTo(5_000_000, fired::add);
+
+        assertEquals(List.of(1, 2), fired);
+        assertEquals(1, wheel.size());
+    }
+}
@@ -0,0 +1,74 @@
+package model;
+
+import model.BillSettlement.Outcome;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BillSettlementTest {
+
+    @Test
+    void idsAreReadAcrossSeparatorsOnceEach() throws IOException {
+        BillSettlement s = read("bill_id\n12, 7;12\n\n  3\t7 ,,5\n", 100);
+
+        assertEquals(List.of(12, 7, 3, 5), s.getIds());
+        assertEquals(0, s.getInvalidCount());
+    }
+
+    @Test
+    void tokensThatAreNotAPositiveIdAreInvalid() throws IOException {
+        BillSettlement s = read("id\n4,0,-3,abc,99999999999,=cmd()\n9", 100);
+
+        assertEquals(List.of(4, 9), s.getIds());
+        assertEquals(List.of("0", "-3", "abc", "99999999999", "=cmd()"), s.getInvalid());
+        assertEquals(5, s.getInvalidCount());
+    }
+
+    @Test
+    void onlyTheFirstInvalidTokensAreKept() throws IOException {
+        BillSettlement s = read("x,".repeat(250), 100);
+
+        assertEquals(200, s.getInvalid().size());
+        assertEquals(250, s.getInvalidCount());
+    }
+
+    @Test
+    void moreDistinctIdsThanAllowedIsRefused() throws IOException {
+        assertTrue(new BillSettlement(true).read(new StringReader("1,2,3,3,2,1"), 3));
+        assertFalse(new BillSettlement(true).read(new StringReader("1,2,3,4"), 3));
+    }
+
+    @Test
+    void outcomesAreCountedAndProblemsListed() throws IOException {
+        BillSettlement s = read("1,2,3,4,5", 100);
+        Map<Integer, Outcome> outcomes = new LinkedHashMap<>();
+        outcomes.put(1, Outcome.UPDATED);
+        outcomes.put(2, Outcome.NOT_FOUND);
+        outcomes.put(3, Outcome.UNCHANGED);
+        outcomes.put(4, Outcome.FAILED);
+        outcomes.put(5, Outcome.UPDATED);
+
+        s.setOutcomes(outcomes);
+
+        assertEquals(2, s.getUpdated());
+        assertEquals(1, s.getUnchanged());
+        assertEquals(1, s.getNotFound());
+        assertEquals(1, s.getFailed());
+        assertEquals(List.of("2 NOT_FOUND", "4 FAILED"), s.getProblems(10));
+        assertEquals(List.of("2 NOT_FOUND"), s.getProblems(1));
+    }
+
+    private static BillSettlement read(String text, int maxIds) throws IOException {
+        BillSettlement s = new BillSettlement(true);
+        assertTrue(s.read(new StringReader(text), maxIds));
+        return s;
+    }
+}
@@ -0,0 +1,61 @@
+package util;
+
+import model.Service;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExpiryCalculatorTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 31, 10, 15);
+
+    @Test
+    void minutes() {
+        assertEquals(START.plusMinutes(90), expiry(90, "MINUTES"));
+        assertEquals(START.plusMinutes(90), expiry(90, "MINUTE"));
+    }
+
+    @Test
+    void hour() {
+        assertEquals(START.plusHours(36), expiry(36, "HOUR"));
+    }
+
+    @Test
+    void day() {
+        assertEquals(START.plusDays(30), expiry(30, "DAY"));
+    }
+
+    @Test
+    void week() {
+        assertEquals(START.plusDays(14), expiry(2, "WEEK"));
+    }
+
+    @Test
+    void monthIsClampedToTheEndOfShorterMonths() {
+        assertEquals(LocalDateTime.of(2024, 2, 29, 10, 15), expiry(1, "MONTH"));
+    }
+
+    @Test
+    void year() {
+        assertEquals(START.plusYears(1), expiry(1, "YEAR"));
+    }
+
+    @Test
+    void unitIsCaseInsensitive() {
+        assertEquals(START.plusMinutes(5), expiry(5, " minutes "));
+    }
+
+    @Test
+    void unknownOrMissingDurationIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> expiry(1, "FORTNIGHT"));
+        assertThrows(IllegalArgumentException.class, () -> expiry(null, "DAY"));
+        assertThrows(IllegalArgumentException.class, () -> expiry(1, null));
+    }
+
+    private static LocalDateTime expiry(Integer value, String unit) {
+        return ExpiryCalculator.calculateExpiry(START, new Service(1, "Plan", "", 10.0, value, unit, true));
+    }
+}
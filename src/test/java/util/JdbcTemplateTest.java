@@ -0,0 +1,31 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JdbcTemplateTest {
+
+    @Test
+    void inListLengthIsBucketedToPowersOfTwo() {
+        assertEquals(8, JdbcTemplate.inListSize(1));
+        assertEquals(8, JdbcTemplate.inListSize(8));
+        assertEquals(16, JdbcTemplate.inListSize(9));
+        assertEquals(16, JdbcTemplate.inListSize(16));
+        assertEquals(32, JdbcTemplate.inListSize(17));
+        assertEquals(512, JdbcTemplate.inListSize(500));
+    }
+
+    @Test
+    void inPadsWithTheLastValue() {
+        List<Object> params = new ArrayList<>(List.of("first"));
+
+        String placeholders = JdbcTemplate.in(List.of(3, 1, 2), params);
+
+        assertEquals("?,?,?,?,?,?,?,?", placeholders);
+        assertEquals(List.of("first", 3, 1, 2, 2, 2, 2, 2, 2), params);
+    }
+}
@@ -0,0 +1,57 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlowQueryLogTest {
+
+    @Test
+    void passwordInInsertIsRedacted() {
+        String sql = "INSERT INTO users (username, password, role) VALUES (?, ?, ?)";
+
+        assertEquals("['alice', ***, 'CUSTOMER']",
+                SlowQueryLog.formatParams(sql, List.of("alice", "secret", "CUSTOMER")));
+    }
+
+    @Test
+    void passwordComparedOrSetIsRedacted() {
+        assertEquals("['alice', ***]", SlowQueryLog.formatParams(
+                "SELECT * FROM users WHERE username = ? AND password = ?", List.of("alice", "secret")));
+        assertEquals("[***, 7]", SlowQueryLog.formatParams(
+                "UPDATE users SET password=? WHERE id = ?", List.of("secret", 7)));
+    }
+
+    @Test
+    void unmappedPasswordShapeRedactsEverything() {
+        String sql = "UPDATE users SET password = SHA2(?, 256) WHERE id = ?";
+
+        assertEquals("[***, ***]", SlowQueryLog.formatParams(sql, List.of("secret", 7)));
+    }
+
+    @Test
+    void otherStatementsKeepTheirParameters() {
+        String sql = "SELECT * FROM subscriptions WHERE customer_id = ? AND status = ? AND note = ?";
+        String longValue = "x".repeat(150);
+
+        assertEquals("[42, NULL, '" + "x".repeat(100) + "...']",
+                SlowQueryLog.formatParams(sql, Arrays.asList(42, null, longValue)));
+    }
+
+    @Test
+    void normalizeReplacesLiteralsAndCollapsesInLists() {
+        assertEquals("SELECT * FROM t1 WHERE a = ? AND b = ? AND c IN (?...)",
+                SlowQueryLog.normalize("SELECT *\n  FROM t1 WHERE a = 'it''s' AND b = -12.5 AND c IN (?, ?,?)"));
+        assertEquals("SELECT id FROM bills WHERE id IN (?...) LIMIT ?",
+                SlowQueryLog.normalize("SELECT id FROM bills WHERE id IN ('1', '2') LIMIT 10"));
+    }
+
+    @Test
+    void normalizeKeepsIdentifiersAndSinglePlaceholders() {
+        assertEquals("SELECT col2 FROM t1 WHERE id IN (?)",
+                SlowQueryLog.normalize("SELECT col2 FROM t1 WHERE id IN (?)"));
+    }
+}
@@ -0,0 +1,193 @@
+package util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementCacheTest {
+
+    private final List<FakeStatement> prepared = new ArrayList<>();
+    private Connection physical;
+
+    @BeforeEach
+    void setUp() {
+        physical = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("prepareStatement".equals(method.getName())) {
+                        FakeStatement s = new FakeStatement((String) args[0]);
+                        prepared.add(s);
+                        return s.proxy;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    void closedStatementIsReusedForTheSameSql() throws SQLException {
+        StatementCache cache = new StatementCache(physical, 4);
+
+        PreparedStatement first = cache.prepare("SELECT 1", null);
+        first.close();
+        PreparedStatement second = cache.prepare("SELECT 1", null);
+
+        assertEquals(1, prepared.size());
+        assertFalse(second.isClosed());
+        assertTrue(first.isClosed());
+        assertThrows(SQLException.class, () -> first.setInt(1, 1));
+    }
+
+    @Test
+    void leastRecentlyUsedStatementIsEvictedAndClosed() throws SQLException {
+        StatementCache cache = new StatementCache(physical, 2);
+
+        cache.prepare("A", null).close();
+        cache.prepare("B", null).close();
+        cache.prepare("A", null).close();
+        cache.prepare("C", null).close();
+
+        assertEquals(2, cache.size());
+        assertEquals(3, prepared.size());
+        assertTrue(statement("B").closed, "B was least recently used");
+        assertFalse(statement("A").closed);
+
+        cache.prepare("A", null).close();
+        assertEquals(3, prepared.size(), "A is still cached");
+        cache.prepare("B", null).close();
+        assertEquals(4, prepared.size(), "B is prepared again");
+    }
+
+    @Test
+    void statementEvictedWhileInUseIsClosedByItsBorrower() throws SQLException {
+        StatementCache cache = new StatementCache(physical, 1);
+
+        PreparedStatement a = cache.prepare("A", null);
+        cache.prepare("B", null).close();
+
+        assertFalse(statement("A").closed);
+        a.close();
+        assertTrue(statement("A").closed);
+    }
+
+    @Test
+    void sameSqlOpenTwiceIsNotShared() throws SQLException {
+        StatementCache cache = new StatementCache(physical, 4);
+
+        PreparedStatement outer = cache.prepare("A", null);
+        PreparedStatement inner = cache.prepare("A", null);
+
+        assertEquals(2, prepared.size());
+        assertNotSame(outer, inner);
+        inner.close();
+        assertTrue(prepared.get(1).closed, "the uncached copy is really closed");
+        assertFalse(prepared.get(0).closed);
+    }
+
+    @Test
+    void checkInRestoresTheStatementAsPrepared() throws SQLException {
+        StatementCache cache = new StatementCache(physical, 4);
+
+        PreparedStatement ps = cache.prepare("INSERT", null);
+        ps.setInt(1, 42);
+        ps.addBatch();
+        ps.setFetchSize(Integer.MIN_VALUE);
+        ps.setMaxRows(10);
+        ps.setQueryTimeout(30);
+        ps.close();
+
+        FakeStatement s = statement("INSERT");
+        assertEquals(0, s.batch);
+        assertEquals(0, s.params);
+        assertEquals(0, s.fetchSize);
+        assertEquals(0, s.maxRows);
+        assertEquals(0, s.queryTimeout);
+        assertFalse(s.closed);
+    }
+
+    @Test
+    void releaseAllReclaimsStatementsLeftOpen() throws SQLException {
+        StatementCache cache = new StatementCache(physical, 4);
+
+        PreparedStatement leaked = cache.prepare("A", null);
+        leaked.setMaxRows(5);
+        cache.releaseAll();
+
+        assertTrue(leaked.isClosed());
+        assertEquals(0, statement("A").maxRows);
+        assertSame(prepared.get(0), statement("A"));
+        cache.prepare("A", null);
+        assertEquals(1, prepared.size());
+    }
+
+    @Test
+    void getConnectionReportsTheOwner() throws SQLException {
+        StatementCache cache = new StatementCache(physical, 4);
+        Connection owner = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> null);
+
+        assertSame(owner, cache.prepare("A", owner).getConnection());
+    }
+
+    private FakeStatement statement(String sql) {
+        return prepared.stream().filter(s -> s.sql.equals(sql)).findFirst().orElseThrow();
+    }
+
+    // Physical statement that only tracks the state StatementCache resets
+    private static final class FakeStatement {
+
+        final String sql;
+        final PreparedStatement proxy;
+        int params;
+        int batch;
+        int fetchSize;
+        int maxRows;
+        int queryTimeout;
+        boolean closed;
+
+        FakeStatement(String sql) {
+            this.sql = sql;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (p, method, args) -> {
+                        switch (method.getName()) {
+                            case "setInt" -> params++;
+                            case "clearParameters" -> params = 0;
+                            case "addBatch" -> batch++;
+                            case "clearBatch" -> batch = 0;
+                            case "setFetchSize" -> fetchSize = (Integer) args[0];
+                            case "getFetchSize" -> {
+                                return fetchSize;
+                            }
+                            case "setMaxRows" -> maxRows = (Integer) args[0];
+                            case "getMaxRows" -> {
+                                return maxRows;
+                            }
+                            case "setQueryTimeout" -> queryTimeout = (Integer) args[0];
+                            case "getQueryTimeout" -> {
+                                return queryTimeout;
+                            }
+                            case "close" -> closed = true;
+                            case "isClosed" -> {
+                                return closed;
+                            }
+                            default -> {
+                            }
+                        }
+                        return null;
+                    });
+        }
+    }
+}
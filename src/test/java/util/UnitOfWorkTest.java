@@ -0,0 +1,197 @@
+package util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnitOfWorkTest {
+
+    // Calls that reached the stub connection, in order
+    private final List<String> calls = new ArrayList<>();
+    private Connection physical;
+
+    @BeforeEach
+    void setUp() {
+        physical = stubConnection(calls);
+    }
+
+    @Test
+    void workReturningTrueCommitsOnce() throws SQLException {
+        assertTrue(UnitOfWork.inTransaction(physical, () -> true));
+
+        assertEquals(List.of("setAutoCommit(false)", "commit", "setAutoCommit(true)"), calls);
+        assertFalse(UnitOfWork.isActive());
+    }
+
+    @Test
+    void daoCommitAndCloseOnTheBoundConnectionAreIgnored() throws SQLException {
+        assertTrue(UnitOfWork.inTransaction(physical, () -> {
+            Connection conn = UnitOfWork.currentConnection();
+            conn.setAutoCommit(false);
+            conn.commit();
+            conn.close();
+            assertFalse(conn.getAutoCommit());
+            return true;
+        }));
+
+        assertEquals(List.of("setAutoCommit(false)", "commit", "setAutoCommit(true)"), calls);
+    }
+
+    @Test
+    void daoRollbackMarksTheUnitRollbackOnly() throws SQLException {
+        assertFalse(UnitOfWork.inTransaction(physical, () -> {
+            UnitOfWork.currentConnection().rollback();
+            return true;
+        }));
+
+        assertEquals(List.of("setAutoCommit(false)", "rollback", "setAutoCommit(true)"), calls);
+    }
+
+    @Test
+    void workReturningFalseOrThrowingRollsBack() throws SQLException {
+        assertFalse(UnitOfWork.inTransaction(physical, () -> false));
+        assertFalse(UnitOfWork.inTransaction(physical, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(List.of("setAutoCommit(false)", "rollback", "setAutoCommit(true)",
+                "setAutoCommit(false)", "rollback", "setAutoCommit(true)"), calls);
+    }
+
+    @Test
+    void setRollbackOnlyRollsBack() throws SQLException {
+        assertFalse(UnitOfWork.inTransaction(physical, () -> {
+            UnitOfWork.setRollbackOnly();
+            return true;
+        }));
+
+        assertTrue(calls.contains("rollback"));
+        assertFalse(calls.contains("commit"));
+    }
+
+    @Test
+    void failedStatementOnTheBoundConnectionRollsBack() throws SQLException {
+        assertFalse(UnitOfWork.inTransaction(physical, () -> {
+            assertThrows(SQLException.class, () -> failingStatement(physical).executeUpdate());
+            return true;
+        }));
+
+        assertTrue(calls.contains("rollback"));
+        assertFalse(calls.contains("commit"));
+    }
+
+    @Test
+    void failedStatementOnAnotherConnectionDoesNotRollBack() throws SQLException {
+        Connection other = stubConnection(new ArrayList<>());
+
+        assertTrue(UnitOfWork.inTransaction(physical, () -> {
+            assertThrows(SQLException.class, () -> failingStatement(other).executeUpdate());
+            return true;
+        }));
+
+        assertTrue(calls.contains("commit"));
+        assertFalse(calls.contains("rollback"));
+    }
+
+    @Test
+    void nestedWorkJoinsTheOuterUnit() throws SQLException {
+        assertFalse(UnitOfWork.inTransaction(physical, () -> {
+            Connection outer = UnitOfWork.currentConnection();
+            assertFalse(UnitOfWork.inTransaction(() -> {
+                assertSame(outer, UnitOfWork.currentConnection());
+                return false;
+            }));
+            return true;
+        }));
+
+        assertEquals(List.of("setAutoCommit(false)", "rollback", "setAutoCommit(true)"), calls);
+    }
+
+    @Test
+    void afterCompletionRunsOnceTheUnitEndsEitherWay() throws SQLException {
+        List<String> events = new ArrayList<>();
+
+        UnitOfWork.inTransaction(physical, () -> {
+            UnitOfWork.afterCompletion(() -> events.add("committed " + calls.contains("commit")));
+            events.add("work");
+            return true;
+        });
+        calls.clear();
+        UnitOfWork.inTransaction(physical, () -> {
+            UnitOfWork.afterCompletion(() -> events.add("rolled back " + calls.contains("rollback")));
+            events.add("work");
+            return false;
+        });
+
+        assertEquals(List.of("work", "committed true", "work", "rolled back true"), events);
+    }
+
+    @Test
+    void afterCompletionRunsNowOutsideAUnit() {
+        List<String> events = new ArrayList<>();
+
+        UnitOfWork.afterCompletion(() -> events.add("ran"));
+
+        assertEquals(List.of("ran"), events);
+        assertNull(UnitOfWork.currentConnection());
+    }
+
+    @Test
+    void failingCallbackDoesNotStopTheOthers() throws SQLException {
+        List<String> events = new ArrayList<>();
+
+        assertTrue(UnitOfWork.inTransaction(physical, () -> {
+            UnitOfWork.afterCompletion(() -> {
+                throw new IllegalStateException("boom");
+            });
+            UnitOfWork.afterCompletion(() -> events.add("second"));
+            return true;
+        }));
+
+        assertEquals(List.of("second"), events);
+    }
+
+    // =============================================
+    // STUBS
+    // =============================================
+    private static Connection stubConnection(List<String> calls) {
+        return (Connection) Proxy.newProxyInstance(UnitOfWorkTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setAutoCommit" -> calls.add("setAutoCommit(" + args[0] + ")");
+                        case "commit", "rollback", "close" -> calls.add(method.getName());
+                        case "isClosed" -> {
+                            return false;
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    }
+                    return null;
+                });
+    }
+
+    // A metered statement on lease owner whose every call fails, as a DAO would see it
+    private static PreparedStatement failingStatement(Connection owner) {
+        PreparedStatement target = (PreparedStatement) Proxy.newProxyInstance(
+                UnitOfWorkTest.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    throw new SQLException("Deadlock found");
+                });
+        return (PreparedStatement) MeteredStatement.wrap(target, PreparedStatement.class, owner,
+                new LeaseStats(), "UPDATE t SET x = 1", "UnitOfWorkTest");
+    }
+}